@@ -10,15 +10,20 @@ DROP TABLE IF EXISTS ship;
 CREATE TABLE ship
 (
     id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
-    name     VARCHAR(50) NULL,
-    planet   VARCHAR(50) NULL,
+    name     VARCHAR(50) COLLATE utf8_bin NULL,
+    planet   VARCHAR(50) COLLATE utf8_bin NULL,
     shipType VARCHAR(9)  NULL,
     prodDate date        NULL,
     isUsed   BIT(1)      NULL,
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
-    PRIMARY KEY (id)
+    version  BIGINT(20)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    INDEX ship_speed_id (speed, id),
+    INDEX ship_prod_date_id (prodDate, id),
+    INDEX ship_rating_id (rating, id),
+    INDEX ship_rating_desc_prod_date_id (rating DESC, prodDate, id)
 )
     ENGINE = InnoDB
     DEFAULT CHARACTER SET = utf8;
@@ -64,3 +69,18 @@ values ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Nostromo', 'Saturn', 'MERCHANT', '2991-01-01', true, 0.31, 1967, 0.43)
      , ('Tardis', 'Jupiter', 'MERCHANT', '3016-01-01', false, 0.86, 4871, 17.20)
      , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
+
+DROP TABLE IF EXISTS ship_sequence;
+
+CREATE TABLE ship_sequence
+(
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT(20)   NOT NULL,
+    PRIMARY KEY (sequence_name)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+insert into ship_sequence(sequence_name, next_val)
+select 'ship', coalesce(max(id), 0)
+from ship;
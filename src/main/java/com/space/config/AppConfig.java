@@ -1,12 +1,19 @@
 package com.space.config;
 
+import com.space.repository.ShipIdGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -17,6 +24,10 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
@@ -27,8 +38,17 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableJpaRepositories(basePackages = "com.space.repository")
 public class AppConfig {
 
+    public static final int BATCH_SIZE = 50;
+
+    private final Environment environment;
+
+    @Autowired
+    public AppConfig(Environment environment) {
+        this.environment = environment;
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory() throws SQLException {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
@@ -41,20 +61,38 @@ public class AppConfig {
     }
 
     @Profile("prod")
-    @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource() throws SQLException {
+        HikariConfig config = poolConfig();
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
+        config.setUsername("root");
+        config.setPassword("root");
+
+        // Connector/J caches prepared statements per connection; the pool itself does not
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize",
+                environment.getProperty("cosmoport.pool.statementCacheSize", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+
+        return warmUp(new HikariDataSource(config));
     }
 
     @Profile("dev")
-    @Bean(name = "dataSource")
-    public DataSource dataSourceForTests() {
+    @Bean(name = "dataSource", destroyMethod = "close")
+    public DataSource dataSourceForTests() throws SQLException {
+        HikariConfig config = poolConfig();
+        config.setDataSource(embeddedDatabase());
+
+        return warmUp(new HikariDataSource(config));
+    }
 
+    // A bean of its own so that the H2 database is shut down with the context; closing the pool that wraps it
+    // only closes the connections
+    @Profile("dev")
+    @Bean(destroyMethod = "shutdown")
+    public EmbeddedDatabase embeddedDatabase() {
         return new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
@@ -64,6 +102,45 @@ public class AppConfig {
                 .build();
     }
 
+    @Bean(destroyMethod = "close")
+    public EntityCache entityCache() {
+        return new EntityCache(environment.getProperty("cosmoport.cache.maxShips", Long.class, 10000L));
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    // Every setting can be overridden by a system property or environment variable of the same name
+    private HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cosmoport");
+        config.setMinimumIdle(environment.getProperty("cosmoport.pool.minIdle", Integer.class, 4));
+        config.setMaximumPoolSize(environment.getProperty("cosmoport.pool.maxSize", Integer.class, 16));
+        config.setConnectionTimeout(environment.getProperty("cosmoport.pool.connectionTimeout", Long.class, 5000L));
+        config.setValidationTimeout(environment.getProperty("cosmoport.pool.validationTimeout", Long.class, 1000L));
+        config.setLeakDetectionThreshold(
+                environment.getProperty("cosmoport.pool.leakDetectionThreshold", Long.class, 30000L));
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        return config;
+    }
+
+    // Opens the minimum number of connections before the first request instead of on demand
+    private static DataSource warmUp(HikariDataSource dataSource) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < dataSource.getMinimumIdle(); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return dataSource;
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -80,6 +157,21 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE));
+        properties.setProperty("hibernate.order_inserts", "true");
+
+        // Only entities marked @Cacheable are cached, in regions that EntityCache creates with a size bound
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", ConfigSettings.SIMPLE_FACTORY_NAME);
+        properties.put(ConfigSettings.CACHE_MANAGER, entityCache().getCacheManager());
+        properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        properties.setProperty("hibernate.generate_statistics", "true");
+        properties.setProperty("hibernate.session.events.log", "false");
+
+        // test.sql resets ship_sequence before every test, which a block of ids cached by Hibernate would not notice
+        int allocationSize = environment.acceptsProfiles(Profiles.of("dev")) ? 1 : BATCH_SIZE;
+        properties.setProperty(ShipIdGenerator.ALLOCATION_SIZE,
+                environment.getProperty(ShipIdGenerator.ALLOCATION_SIZE, String.valueOf(allocationSize)));
 
         return properties;
     }
@@ -0,0 +1,77 @@
+package com.space.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Receives the pool's own timings. Connection counts come from the pool's snapshot, which may be up to a second old.
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private volatile PoolStats poolStats;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long millis) {
+                created.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long nanos) {
+                acquisitions.increment();
+                waitNanos.add(nanos);
+                maxWaitNanos.accumulate(nanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long millis) {
+                usages.increment();
+                usageMillis.add(millis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            statistics.put("active", stats.getActiveConnections());
+            statistics.put("idle", stats.getIdleConnections());
+            statistics.put("total", stats.getTotalConnections());
+            statistics.put("waiting", stats.getPendingThreads());
+            statistics.put("minIdle", stats.getMinConnections());
+            statistics.put("maxSize", stats.getMaxConnections());
+        }
+
+        long acquired = acquisitions.sum();
+        long used = usages.sum();
+        statistics.put("connectionsCreated", created.sum());
+        statistics.put("acquisitions", acquired);
+        statistics.put("averageWaitMillis", acquired == 0 ? 0.0 : waitNanos.sum() / 1e6 / acquired);
+        statistics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        statistics.put("averageUsageMillis", used == 0 ? 0.0 : (double) usageMillis.sum() / used);
+        statistics.put("timeouts", timeouts.sum());
+        return statistics;
+    }
+}
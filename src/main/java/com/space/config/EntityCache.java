@@ -0,0 +1,82 @@
+package com.space.config;
+
+import com.space.model.Ship;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventType;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hibernate's second-level cache for ships, kept on the heap and bounded by the number of entries. Hits, misses and
+// puts come from Hibernate's statistics; evictions are only seen by the cache itself, so they are counted here.
+// Writes to a single ship replace or drop only its own entry, while a bulk statement invalidates the whole region
+// because Hibernate cannot tell which rows it touched.
+public class EntityCache {
+
+    public static final String SHIP_REGION = Ship.class.getName();
+
+    private static final AtomicInteger managers = new AtomicInteger();
+
+    private final LongAdder evictions = new LongAdder();
+    private final long maxShips;
+    private final CacheManager cacheManager;
+
+    public EntityCache(long maxShips) {
+        this.maxShips = maxShips;
+
+        CacheEventListener<Object, Object> evicted = event -> evictions.increment();
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(SHIP_REGION, CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxShips))
+                        .withService(CacheEventListenerConfigurationBuilder
+                                .newEventListenerConfiguration(evicted, EventType.EVICTED)
+                                .unordered()
+                                .synchronous())
+                        .build())
+                .build();
+
+        // The provider hands out one manager per URI, so each application context asks for its own
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        this.cacheManager = provider.getCacheManager(
+                URI.create("urn:cosmoport:entity-cache:" + managers.incrementAndGet()), configuration);
+    }
+
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    public void close() {
+        cacheManager.close();
+    }
+
+    public Map<String, Object> getStatistics(EntityManagerFactory entityManagerFactory) {
+        CacheRegionStatistics ships = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics(SHIP_REGION);
+
+        long hits = ships.getHitCount();
+        long misses = ships.getMissCount();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("region", SHIP_REGION);
+        statistics.put("maxEntries", maxShips);
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        statistics.put("puts", ships.getPutCount());
+        statistics.put("evictions", evictions.sum());
+        return statistics;
+    }
+}
@@ -1,12 +1,23 @@
 package com.space.controller;
 
+import com.space.model.CountEstimate;
+import com.space.model.QueryPlan;
 import com.space.model.Ship;
+import com.space.model.ShipAggregates;
+import com.space.model.ShipPage;
+import com.space.model.ShipRank;
 import com.space.model.ShipType;
+import com.space.model.Suggestion;
+import com.space.service.ShipCursor;
+import com.space.service.ShipQuery;
 import com.space.service.ShipServiceImpl;
+import com.space.service.ShipSort;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -14,6 +25,8 @@ import java.util.List;
 @RequestMapping("/rest/ships")
 public class ShipController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ShipServiceImpl shipService;
 
     @Autowired
@@ -35,13 +48,79 @@ public class ShipController {
                                   @RequestParam(required = false) Double minRating,
                                   @RequestParam(required = false) Double maxRating,
                                   @RequestParam(required = false) ShipOrder order,
+                                  @RequestParam(required = false) Sort.Direction direction,
+                                  @RequestParam(required = false) String sort,
+                                  @RequestParam(required = false) Integer pageNumber,
+                                  @RequestParam(required = false) Integer pageSize,
+                                  @RequestParam(required = false) String cursor,
+                                  HttpServletResponse response) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        ShipSort shipSort = sortOf(sort, order, direction);
+
+        if (cursor == null) return shipService.getShipListByOrderByPage(query, shipSort, pageNumber, pageSize);
+
+        List<Ship> ships = shipService.getShipListByCursor(query, shipSort, cursor, pageSize);
+
+        if (!ships.isEmpty() && ships.size() == (pageSize == null ? 3 : pageSize)) {
+            ShipCursor next = ShipCursor.of(shipSort.getSeekOrder(), ships.get(ships.size() - 1));
+            response.setHeader(NEXT_CURSOR_HEADER, next.encode());
+        }
+
+        return ships;
+    }
+
+    @GetMapping(params = "explain=true")
+    public QueryPlan explainShips(@RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String planet,
+                                  @RequestParam(required = false) ShipType shipType,
+                                  @RequestParam(required = false) Long after,
+                                  @RequestParam(required = false) Long before,
+                                  @RequestParam(required = false) Boolean isUsed,
+                                  @RequestParam(required = false) Double minSpeed,
+                                  @RequestParam(required = false) Double maxSpeed,
+                                  @RequestParam(required = false) Integer minCrewSize,
+                                  @RequestParam(required = false) Integer maxCrewSize,
+                                  @RequestParam(required = false) Double minRating,
+                                  @RequestParam(required = false) Double maxRating,
+                                  @RequestParam(required = false) ShipOrder order,
+                                  @RequestParam(required = false) Sort.Direction direction,
+                                  @RequestParam(required = false) String sort,
                                   @RequestParam(required = false) Integer pageNumber,
                                   @RequestParam(required = false) Integer pageSize) {
 
-        List<Ship> shipList = shipService.getAllShipsByFilter(name, planet, shipType, after, before,
-                isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        return shipService.explain(query, sortOf(sort, order, direction), pageNumber, pageSize);
+    }
+
+    @GetMapping("/page")
+    public ShipPage getShipPage(@RequestParam(required = false) String name,
+                                @RequestParam(required = false) String planet,
+                                @RequestParam(required = false) ShipType shipType,
+                                @RequestParam(required = false) Long after,
+                                @RequestParam(required = false) Long before,
+                                @RequestParam(required = false) Boolean isUsed,
+                                @RequestParam(required = false) Double minSpeed,
+                                @RequestParam(required = false) Double maxSpeed,
+                                @RequestParam(required = false) Integer minCrewSize,
+                                @RequestParam(required = false) Integer maxCrewSize,
+                                @RequestParam(required = false) Double minRating,
+                                @RequestParam(required = false) Double maxRating,
+                                @RequestParam(required = false) ShipOrder order,
+                                @RequestParam(required = false) Sort.Direction direction,
+                                @RequestParam(required = false) String sort,
+                                @RequestParam(required = false) Integer pageNumber,
+                                @RequestParam(required = false) Integer pageSize,
+                                @RequestParam(defaultValue = "false") boolean facets) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
 
-        return shipService.getShipListByOrderByPage(shipList, order, pageNumber, pageSize);
+        return shipService.getShipPage(query, sortOf(sort, order, direction), pageNumber, pageSize, facets);
     }
 
     @GetMapping("/count")
@@ -61,17 +140,101 @@ public class ShipController {
                          @RequestParam(required = false) Integer pageNumber,
                          @RequestParam(required = false) Integer pageSize) {
 
-        return shipService.getShipCount(name, planet, shipType, after, before,
-                isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
 
+        return shipService.getShipCount(query);
     }
 
+    @GetMapping(value = "/count", params = "approximate=true")
+    public CountEstimate approximateShipCount(@RequestParam(required = false) String name,
+                                              @RequestParam(required = false) String planet,
+                                              @RequestParam(required = false) ShipType shipType,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Long before,
+                                              @RequestParam(required = false) Boolean isUsed,
+                                              @RequestParam(required = false) Double minSpeed,
+                                              @RequestParam(required = false) Double maxSpeed,
+                                              @RequestParam(required = false) Integer minCrewSize,
+                                              @RequestParam(required = false) Integer maxCrewSize,
+                                              @RequestParam(required = false) Double minRating,
+                                              @RequestParam(required = false) Double maxRating) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        return shipService.getApproximateShipCount(query);
+    }
+
+    @GetMapping("/aggregates")
+    public ShipAggregates getAggregates(@RequestParam(required = false) String name,
+                                        @RequestParam(required = false) String planet,
+                                        @RequestParam(required = false) ShipType shipType,
+                                        @RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Long before,
+                                        @RequestParam(required = false) Boolean isUsed,
+                                        @RequestParam(required = false) Double minSpeed,
+                                        @RequestParam(required = false) Double maxSpeed,
+                                        @RequestParam(required = false) Integer minCrewSize,
+                                        @RequestParam(required = false) Integer maxCrewSize,
+                                        @RequestParam(required = false) Double minRating,
+                                        @RequestParam(required = false) Double maxRating) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        return shipService.getAggregates(query);
+    }
+
+    @GetMapping("/leaderboard")
+    public List<Ship> getLeaderboard(@RequestParam(required = false) Integer pageNumber,
+                                     @RequestParam(required = false) Integer pageSize) {
+        return shipService.getLeaderboard(pageNumber, pageSize);
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(required = false) String field,
+                                    @RequestParam(required = false) String prefix,
+                                    @RequestParam(required = false) Integer limit) {
+        return shipService.getSuggestions(field, prefix, limit);
+    }
+
+    @GetMapping("/{id}/rank")
+    public ShipRank getShipRank(@PathVariable(name = "id") String id) {
+        return shipService.getShipRank(id);
+    }
 
     @PostMapping
     public Ship createNewShip(@RequestBody Ship ship) {
         return shipService.createNewShip(ship);
     }
 
+    @PostMapping("/batch")
+    public List<Ship> createNewShips(@RequestBody List<Ship> ships) {
+        return shipService.createNewShips(ships);
+    }
+
+    @PostMapping("/bulk")
+    public int updateShips(@RequestParam(required = false) String name,
+                           @RequestParam(required = false) String planet,
+                           @RequestParam(required = false) ShipType shipType,
+                           @RequestParam(required = false) Long after,
+                           @RequestParam(required = false) Long before,
+                           @RequestParam(required = false) Boolean isUsed,
+                           @RequestParam(required = false) Double minSpeed,
+                           @RequestParam(required = false) Double maxSpeed,
+                           @RequestParam(required = false) Integer minCrewSize,
+                           @RequestParam(required = false) Integer maxCrewSize,
+                           @RequestParam(required = false) Double minRating,
+                           @RequestParam(required = false) Double maxRating,
+                           @RequestBody Ship patch) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        return shipService.updateShips(query, patch);
+    }
+
     @PostMapping("/{id}")
     public Ship updateShip(@RequestBody Ship ship,
                            @PathVariable Long id) {
@@ -83,8 +246,33 @@ public class ShipController {
         return shipService.getShipById(id);
     }
 
+    @DeleteMapping("/bulk")
+    public int deleteShips(@RequestParam(required = false) String name,
+                           @RequestParam(required = false) String planet,
+                           @RequestParam(required = false) ShipType shipType,
+                           @RequestParam(required = false) Long after,
+                           @RequestParam(required = false) Long before,
+                           @RequestParam(required = false) Boolean isUsed,
+                           @RequestParam(required = false) Double minSpeed,
+                           @RequestParam(required = false) Double maxSpeed,
+                           @RequestParam(required = false) Integer minCrewSize,
+                           @RequestParam(required = false) Integer maxCrewSize,
+                           @RequestParam(required = false) Double minRating,
+                           @RequestParam(required = false) Double maxRating) {
+
+        ShipQuery query = new ShipQuery(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+
+        return shipService.deleteShips(query);
+    }
+
     @DeleteMapping("/{id}")
     public void deleteShipById(@PathVariable(name = "id") String id) {
         shipService.deleteShipById(id);
     }
+
+    // "sort" takes several keys, e.g. sort=RATING:DESC,DATE; without it order and direction give a single key
+    private static ShipSort sortOf(String sort, ShipOrder order, Sort.Direction direction) {
+        return sort != null ? ShipSort.parse(sort) : ShipSort.of(order, direction);
+    }
 }
@@ -0,0 +1,51 @@
+package com.space.controller;
+
+import com.space.config.ConnectionPoolMetrics;
+import com.space.config.EntityCache;
+import com.space.service.ShipServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/stats")
+public class StatsController {
+
+    private final ShipServiceImpl shipService;
+    private final ConnectionPoolMetrics poolMetrics;
+    private final EntityCache entityCache;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public StatsController(ShipServiceImpl shipService, ConnectionPoolMetrics poolMetrics, EntityCache entityCache,
+                           EntityManagerFactory entityManagerFactory) {
+        this.shipService = shipService;
+        this.poolMetrics = poolMetrics;
+        this.entityCache = entityCache;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @GetMapping("/engine")
+    public Map<String, Object> getEngineStatistics() {
+        return shipService.getEngineStatistics();
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStatistics() {
+        return shipService.getCacheStatistics();
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Object> getPoolStatistics() {
+        return poolMetrics.getStatistics();
+    }
+
+    @GetMapping("/entity-cache")
+    public Map<String, Object> getEntityCacheStatistics() {
+        return entityCache.getStatistics(entityManagerFactory);
+    }
+}
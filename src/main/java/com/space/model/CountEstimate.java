@@ -0,0 +1,45 @@
+package com.space.model;
+
+public class CountEstimate {
+
+    private final long estimate;
+    private final long lower;
+    private final long upper;
+    private final double confidence;
+    private final int sampleSize;
+    private final long population;
+
+    public CountEstimate(long estimate, long lower, long upper, double confidence, int sampleSize,
+                         long population) {
+        this.estimate = estimate;
+        this.lower = lower;
+        this.upper = upper;
+        this.confidence = confidence;
+        this.sampleSize = sampleSize;
+        this.population = population;
+    }
+
+    public long getEstimate() {
+        return estimate;
+    }
+
+    public long getLower() {
+        return lower;
+    }
+
+    public long getUpper() {
+        return upper;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public long getPopulation() {
+        return population;
+    }
+}
@@ -0,0 +1,64 @@
+package com.space.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class QueryPlan {
+
+    private final String engine;
+    private final List<Stage> stages = new ArrayList<>();
+
+    public QueryPlan(String engine) {
+        this.engine = engine;
+    }
+
+    public void addStage(String operation, String access, long estimatedRows, long rows, long nanos) {
+        stages.add(new Stage(operation, access, estimatedRows, rows, nanos / 1000));
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public static class Stage {
+
+        private final String operation;
+        private final String access;
+        private final long estimatedRows;
+        private final long rows;
+        private final long micros;
+
+        Stage(String operation, String access, long estimatedRows, long rows, long micros) {
+            this.operation = operation;
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+            this.rows = rows;
+            this.micros = micros;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getAccess() {
+            return access;
+        }
+
+        public long getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMicros() {
+            return micros;
+        }
+    }
+}
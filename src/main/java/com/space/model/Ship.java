@@ -1,15 +1,23 @@
 package com.space.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ship {
 
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "ship_id")
+    @GenericGenerator(name = "ship_id", strategy = "com.space.repository.ShipIdGenerator")
     private Long id;
 
     @Column
@@ -37,6 +45,11 @@ public class Ship {
     @Column
     private Double rating;
 
+    @Version
+    @Column
+    @JsonIgnore
+    private Long version;
+
     public Ship() {
     }
 
@@ -111,4 +124,12 @@ public class Ship {
     public void setRating(Double rating) {
         this.rating = rating;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,79 @@
+package com.space.model;
+
+import java.util.Map;
+
+public class ShipAggregates {
+
+    private final long count;
+    private final Map<ShipType, Long> shipType;
+    private final Map<String, Long> planet;
+    private final Map<Boolean, Long> isUsed;
+    private final Summary speed;
+    private final Summary rating;
+    private final Summary crewSize;
+
+    public ShipAggregates(long count, Map<ShipType, Long> shipType, Map<String, Long> planet,
+                          Map<Boolean, Long> isUsed, Summary speed, Summary rating, Summary crewSize) {
+        this.count = count;
+        this.shipType = shipType;
+        this.planet = planet;
+        this.isUsed = isUsed;
+        this.speed = speed;
+        this.rating = rating;
+        this.crewSize = crewSize;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<ShipType, Long> getShipType() {
+        return shipType;
+    }
+
+    public Map<String, Long> getPlanet() {
+        return planet;
+    }
+
+    public Map<Boolean, Long> getIsUsed() {
+        return isUsed;
+    }
+
+    public Summary getSpeed() {
+        return speed;
+    }
+
+    public Summary getRating() {
+        return rating;
+    }
+
+    public Summary getCrewSize() {
+        return crewSize;
+    }
+
+    // min, max and avg are null when no ship matches
+    public static class Summary {
+
+        private final Double min;
+        private final Double max;
+        private final Double avg;
+
+        public Summary(Double min, Double max, Double avg) {
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+        }
+
+        public Double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public Double getAvg() {
+            return avg;
+        }
+    }
+}
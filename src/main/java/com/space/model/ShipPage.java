@@ -0,0 +1,29 @@
+package com.space.model;
+
+import java.util.List;
+import java.util.Map;
+
+public class ShipPage {
+
+    private final List<Ship> ships;
+    private final long count;
+    private final Map<String, Map<Object, Long>> facets;
+
+    public ShipPage(List<Ship> ships, long count, Map<String, Map<Object, Long>> facets) {
+        this.ships = ships;
+        this.count = count;
+        this.facets = facets;
+    }
+
+    public List<Ship> getShips() {
+        return ships;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<String, Map<Object, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,32 @@
+package com.space.model;
+
+public class ShipRank {
+
+    private final long id;
+    private final double rating;
+    private final int rank;
+    private final int total;
+
+    public ShipRank(long id, double rating, int rank, int total) {
+        this.id = id;
+        this.rating = rating;
+        this.rank = rank;
+        this.total = total;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+}
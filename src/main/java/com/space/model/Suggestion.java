@@ -0,0 +1,26 @@
+package com.space.model;
+
+public class Suggestion {
+
+    private final String field;
+    private final String value;
+    private final int count;
+
+    public Suggestion(String field, String value, int count) {
+        this.field = field;
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
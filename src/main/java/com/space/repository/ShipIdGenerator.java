@@ -0,0 +1,31 @@
+package com.space.repository;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// Hands out ids from blocks reserved in the ship_sequence table, so inserts no longer wait for the database to
+// assign an id and Hibernate can batch them. The block size comes from the "cosmoport.id.allocationSize" setting.
+public class ShipIdGenerator extends TableGenerator {
+
+    public static final String ALLOCATION_SIZE = "cosmoport.id.allocationSize";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Properties properties = new Properties();
+        properties.putAll(params);
+        properties.setProperty(TABLE_PARAM, "ship_sequence");
+        properties.setProperty(SEGMENT_VALUE_PARAM, "ship");
+        properties.setProperty(OPT_PARAM, "pooled-lo");
+
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings()
+                .get(ALLOCATION_SIZE);
+        properties.setProperty(INCREMENT_PARAM, allocationSize == null ? "50" : allocationSize.toString());
+
+        super.configure(type, properties, serviceRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ShipRepositoryCustom {
+
+    List<Ship> findPage(Specification<Ship> specification, Pageable pageable);
+
+    List<Object[]> countGroupedBy(Specification<Ship> specification, String... attributes);
+
+    List<Object[]> aggregateGroups(Specification<Ship> specification);
+
+    int updateMatching(Specification<Ship> specification, Ship patch);
+
+    int deleteMatching(Specification<Ship> specification);
+}
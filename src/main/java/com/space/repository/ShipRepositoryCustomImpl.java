@@ -0,0 +1,156 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+// Unlike JpaSpecificationExecutor.findAll(spec, pageable) this does not issue the extra COUNT query
+public class ShipRepositoryCustomImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Ship> findPage(Specification<Ship> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    // One row per combination of the attributes' values, holding those values followed by the count
+    @Override
+    public List<Object[]> countGroupedBy(Specification<Ship> specification, String... attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+
+        List<Expression<?>> groups = new ArrayList<>();
+        for (String attribute : attributes) {
+            groups.add(root.get(attribute));
+        }
+        List<Selection<?>> selections = new ArrayList<>(groups);
+        selections.add(cb.count(root));
+        query.multiselect(selections).groupBy(groups);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    // One row per (shipType, planet, isUsed) with count, min, max and sum of speed, rating and crewSize,
+    // so a single scan yields every facet and summary once the rows are rolled up
+    @Override
+    public List<Object[]> aggregateGroups(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+
+        Path<Double> speed = root.get("speed");
+        Path<Double> rating = root.get("rating");
+        Path<Integer> crewSize = root.get("crewSize");
+        query.multiselect(root.get("shipType"), root.get("planet"), root.get("isUsed"), cb.count(root),
+                cb.min(speed), cb.max(speed), cb.sum(speed),
+                cb.min(rating), cb.max(rating), cb.sum(rating),
+                cb.min(crewSize), cb.max(crewSize), cb.sum(crewSize))
+                .groupBy(root.get("shipType"), root.get("planet"), root.get("isUsed"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    // Sets every non-null field of the patch on all matching rows. When speed, isUsed or prodDate change the rating
+    // is recomputed in the same statement, with ShipService.getRating's formula. Patched values are used as literals
+    // because databases disagree on whether SET sees the old or the new value of another column.
+    @Override
+    public int updateMatching(Specification<Ship> specification, Ship patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null) update.where(predicate);
+
+        if (patch.getName() != null) update.set(root.<String>get("name"), patch.getName());
+        if (patch.getPlanet() != null) update.set(root.<String>get("planet"), patch.getPlanet());
+        if (patch.getShipType() != null) update.set(root.get("shipType"), patch.getShipType());
+        if (patch.getCrewSize() != null) update.set(root.<Integer>get("crewSize"), patch.getCrewSize());
+        if (patch.isUsed() != null) update.set(root.<Boolean>get("isUsed"), patch.isUsed());
+        if (patch.getProdDate() != null) update.set(root.<Date>get("prodDate"), patch.getProdDate());
+        if (patch.getSpeed() != null) update.set(root.<Double>get("speed"), patch.getSpeed());
+
+        if (patch.getSpeed() != null || patch.isUsed() != null || patch.getProdDate() != null) {
+            update.set(root.<Double>get("rating"), rating(cb, root, patch));
+        }
+        // Bumped so that a single-ship update racing with this statement fails its version check
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int deleteMatching(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null) delete.where(predicate);
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    // round(80 * speed * k / (3019 - year + 1), 2) where k is 0.5 for a used ship and 1 otherwise
+    private static Expression<Double> rating(CriteriaBuilder cb, Root<Ship> root, Ship patch) {
+        Expression<Double> speed = patch.getSpeed() != null ? cb.literal(patch.getSpeed()) : root.get("speed");
+
+        Expression<Double> k;
+        if (patch.isUsed() != null) {
+            k = cb.literal(patch.isUsed() ? 0.5 : 1.0);
+        } else {
+            k = cb.<Double>selectCase().when(cb.isTrue(root.get("isUsed")), 0.5).otherwise(1.0);
+        }
+
+        Expression<Integer> year;
+        if (patch.getProdDate() != null) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(patch.getProdDate());
+            year = cb.literal(calendar.get(Calendar.YEAR));
+        } else {
+            year = cb.function("year", Integer.class, root.get("prodDate"));
+        }
+
+        Expression<Number> rating = cb.quot(cb.prod(cb.prod(cb.literal(80.0), speed), k),
+                cb.diff(cb.literal(3020), year));
+        return cb.function("round", Double.class, rating, cb.literal(2));
+    }
+}
@@ -0,0 +1,111 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.service.ShipCursor;
+import com.space.service.ShipQuery;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+public final class ShipSpecifications {
+
+    private ShipSpecifications() {
+    }
+
+    public static Specification<Ship> byFilter(ShipQuery filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.getName() != null) {
+                predicates.add(cb.like(root.get("name"), containsPattern(filter.getName()), '\\'));
+            }
+            if (filter.getPlanet() != null) {
+                predicates.add(cb.like(root.get("planet"), containsPattern(filter.getPlanet()), '\\'));
+            }
+            if (filter.getShipType() != null) predicates.add(cb.equal(root.get("shipType"), filter.getShipType()));
+            if (filter.getAfter() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("prodDate"), new Date(filter.getAfter())));
+            }
+            if (filter.getBefore() != null) {
+                predicates.add(cb.lessThan(root.get("prodDate"), endOfYear(filter.getBefore())));
+            }
+            if (filter.isUsed() != null) predicates.add(cb.equal(root.get("isUsed"), filter.isUsed()));
+            if (filter.getMinSpeed() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("speed"), filter.getMinSpeed()));
+            }
+            if (filter.getMaxSpeed() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("speed"), filter.getMaxSpeed()));
+            }
+            if (filter.getMinCrewSize() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("crewSize"), filter.getMinCrewSize()));
+            }
+            if (filter.getMaxCrewSize() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("crewSize"), filter.getMaxCrewSize()));
+            }
+            if (filter.getMinRating() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("rating"), filter.getMinRating()));
+            }
+            if (filter.getMaxRating() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("rating"), filter.getMaxRating()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Ship> after(ShipCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            switch (cursor.getOrder()) {
+                case SPEED:
+                    return seek(cb, root.get("speed"), (Double) cursor.getKey(), id, cursor.getId());
+                case DATE:
+                    return seek(cb, root.get("prodDate"), (Date) cursor.getKey(), id, cursor.getId());
+                case RATING:
+                    return seek(cb, root.get("rating"), (Double) cursor.getKey(), id, cursor.getId());
+                default:
+                    return cb.greaterThan(id, cursor.getId());
+            }
+        };
+    }
+
+    // "before" matches every ship produced in the same year or earlier, so the bound is the start of the next year
+    public static Date endOfYear(long before) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(before);
+        int year = calendar.get(Calendar.YEAR);
+        calendar.clear();
+        calendar.set(year + 1, Calendar.JANUARY, 1);
+        return calendar.getTime();
+    }
+
+    // prodDate is a DATE column, so a saved ship's production time reads back as the start of its day
+    public static long startOfDay(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate seek(CriteriaBuilder cb, Path<Y> key, Y lastKey,
+                                                                    Path<Long> id, long lastId) {
+        return cb.or(cb.greaterThan(key, lastKey),
+                cb.and(cb.equal(key, lastKey), cb.greaterThan(id, lastId)));
+    }
+
+    private static String containsPattern(String value) {
+        String escaped = value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
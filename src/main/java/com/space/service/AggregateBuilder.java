@@ -0,0 +1,71 @@
+package com.space.service;
+
+import com.space.model.ShipAggregates;
+import com.space.model.ShipType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Accumulates aggregates either ship by ship or from pre-aggregated groups, e.g. rows of a GROUP BY
+public final class AggregateBuilder {
+
+    private long count;
+    private final Map<ShipType, Long> shipTypes = new EnumMap<>(ShipType.class);
+    private final Map<String, Long> planets = new TreeMap<>();
+    private final Map<Boolean, Long> isUsed = new TreeMap<>();
+    private final Accumulator speed = new Accumulator();
+    private final Accumulator rating = new Accumulator();
+    private final Accumulator crewSize = new Accumulator();
+
+    public void add(ShipType shipType, String planet, Boolean used, double speed, double rating, int crewSize) {
+        addGroup(shipType, planet, used, 1);
+        this.speed.add(1, speed, speed, speed);
+        this.rating.add(1, rating, rating, rating);
+        this.crewSize.add(1, crewSize, crewSize, crewSize);
+    }
+
+    public void addGroup(ShipType shipType, String planet, Boolean used, long count) {
+        this.count += count;
+        if (shipType != null) shipTypes.merge(shipType, count, Long::sum);
+        if (planet != null) planets.merge(planet, count, Long::sum);
+        if (used != null) isUsed.merge(used, count, Long::sum);
+    }
+
+    public Accumulator speed() {
+        return speed;
+    }
+
+    public Accumulator rating() {
+        return rating;
+    }
+
+    public Accumulator crewSize() {
+        return crewSize;
+    }
+
+    public ShipAggregates build() {
+        return new ShipAggregates(count, shipTypes, planets, isUsed,
+                speed.summary(), rating.summary(), crewSize.summary());
+    }
+
+    public static final class Accumulator {
+
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+
+        public void add(long count, double min, double max, double sum) {
+            this.count += count;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += sum;
+        }
+
+        ShipAggregates.Summary summary() {
+            if (count == 0) return new ShipAggregates.Summary(null, null, null);
+            return new ShipAggregates.Summary(min, max, sum / count);
+        }
+    }
+}
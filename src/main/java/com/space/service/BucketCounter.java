@@ -0,0 +1,71 @@
+package com.space.service;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.function.DoubleToIntFunction;
+
+// Counts values per bucket in a Fenwick tree, so the number of values in any run of whole buckets is two prefix
+// sums. Each bucket also keeps its exact values, which are only read for the partly covered buckets at the edges
+// of a range.
+final class BucketCounter {
+
+    private final DoubleToIntFunction bucketOf;
+    private final long[] tree;
+    private final TreeMap<Double, Integer>[] values;
+
+    @SuppressWarnings("unchecked")
+    BucketCounter(int buckets, DoubleToIntFunction bucketOf) {
+        this.bucketOf = bucketOf;
+        this.tree = new long[buckets + 1];
+        this.values = new TreeMap[buckets];
+    }
+
+    void add(double value, int delta) {
+        int bucket = bucket(value);
+        if (values[bucket] == null) values[bucket] = new TreeMap<>();
+        values[bucket].merge(value, delta, (a, b) -> a + b == 0 ? null : a + b);
+
+        for (int i = bucket + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Number of values in [min, max]
+    long count(double min, double max) {
+        if (min > max) return 0;
+
+        int first = bucket(min);
+        int last = bucket(max);
+        if (first == last) return exact(first, min, max);
+
+        return exact(first, min, max) + prefix(last) - prefix(first + 1) + exact(last, min, max);
+    }
+
+    void clear() {
+        Arrays.fill(tree, 0);
+        Arrays.fill(values, null);
+    }
+
+    private int bucket(double value) {
+        return Math.max(0, Math.min(values.length - 1, bucketOf.applyAsInt(value)));
+    }
+
+    // Values in buckets [0, bucket)
+    private long prefix(int bucket) {
+        long sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private long exact(int bucket, double min, double max) {
+        if (values[bucket] == null) return 0;
+
+        long count = 0;
+        for (int n : values[bucket].subMap(min, true, max, true).values()) {
+            count += n;
+        }
+        return count;
+    }
+}
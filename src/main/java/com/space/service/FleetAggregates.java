@@ -0,0 +1,91 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipAggregates;
+import com.space.model.ShipType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregates over the whole fleet, adjusted on every create, update and delete so the unfiltered answer never
+// scans. min and max come from a sorted multiset of values per field, so removing the current extreme is cheap.
+@Component
+public class FleetAggregates {
+
+    private long count;
+    private final Map<ShipType, Long> shipTypes = new EnumMap<>(ShipType.class);
+    private final Map<String, Long> planets = new TreeMap<>();
+    private final Map<Boolean, Long> isUsed = new TreeMap<>();
+    private final Field speed = new Field();
+    private final Field rating = new Field();
+    private final Field crewSize = new Field();
+
+    public synchronized void reload(List<Ship> ships) {
+        count = 0;
+        shipTypes.clear();
+        planets.clear();
+        isUsed.clear();
+        speed.clear();
+        rating.clear();
+        crewSize.clear();
+        for (Ship ship : ships) {
+            adjust(ship, 1);
+        }
+    }
+
+    public synchronized void add(Ship ship) {
+        adjust(ship, 1);
+    }
+
+    public synchronized void remove(Ship ship) {
+        adjust(ship, -1);
+    }
+
+    public synchronized ShipAggregates snapshot() {
+        return new ShipAggregates(count, new EnumMap<>(shipTypes), new TreeMap<>(planets), new TreeMap<>(isUsed),
+                speed.summary(), rating.summary(), crewSize.summary());
+    }
+
+    private void adjust(Ship ship, int delta) {
+        count += delta;
+        adjust(shipTypes, ship.getShipType(), delta);
+        adjust(planets, ship.getPlanet(), delta);
+        adjust(isUsed, ship.isUsed(), delta);
+        speed.adjust(ship.getSpeed(), delta);
+        rating.adjust(ship.getRating(), delta);
+        crewSize.adjust(ship.getCrewSize() == null ? null : ship.getCrewSize().doubleValue(), delta);
+    }
+
+    private static <K> void adjust(Map<K, Long> counts, K key, int delta) {
+        if (key == null) return;
+        counts.merge(key, (long) delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static final class Field {
+
+        private final TreeMap<Double, Integer> values = new TreeMap<>();
+        private long count;
+        private double sum;
+
+        void adjust(Double value, int delta) {
+            if (value == null) return;
+            values.merge(value, delta, (a, b) -> a + b == 0 ? null : a + b);
+            count += delta;
+            sum += delta * value;
+        }
+
+        void clear() {
+            values.clear();
+            count = 0;
+            sum = 0;
+        }
+
+        ShipAggregates.Summary summary() {
+            if (values.isEmpty()) return new ShipAggregates.Summary(null, null, null);
+            return new ShipAggregates.Summary(values.firstKey(), values.lastKey(), sum / count);
+        }
+    }
+}
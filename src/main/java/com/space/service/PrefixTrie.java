@@ -0,0 +1,282 @@
+package com.space.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Counts terms by their lower-cased characters. It is a radix trie: a chain of nodes with one child each is kept as
+// a single edge labelled with the whole run of characters. Children sit in sorted parallel arrays keyed by the first
+// character of their label, and every node knows the highest count below it, so the most frequent completions of a
+// prefix come out best-first without visiting the rest of the subtree. Terms differing only in case share a node,
+// which shows the casing most of them use.
+final class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final String[] NO_CASINGS = new String[0];
+    private static final int[] NO_COUNTS = new int[0];
+
+    private Node root = new Node("");
+    private int terms;
+
+    void add(String term) {
+        if (term == null) return;
+
+        String key = term.toLowerCase(Locale.ROOT);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+            } else {
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) child = node.split(child, common);
+            }
+            node = child;
+            path.add(node);
+            i += node.label.length();
+        }
+
+        if (node.count++ == 0) terms++;
+        node.addCasing(term);
+        for (Node step : path) {
+            step.best = Math.max(step.best, node.count);
+        }
+    }
+
+    void remove(String term) {
+        if (term == null) return;
+
+        String key = term.toLowerCase(Locale.ROOT);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.label, i)) return;
+            path.add(node);
+            i += node.label.length();
+        }
+        if (!node.removeCasing(term)) return;
+
+        if (--node.count == 0) terms--;
+        for (int j = path.size() - 1; j > 0; j--) {
+            Node step = path.get(j);
+            Node parent = path.get(j - 1);
+            step.updateBest();
+            if (step.count > 0) continue;
+
+            // A node that no longer ends a term is only kept where paths branch
+            if (step.children.length == 0) {
+                parent.removeChild(step.label.charAt(0));
+            } else if (step.children.length == 1) {
+                Node only = step.children[0];
+                only.label = step.label + only.label;
+                parent.replaceChild(only);
+            }
+        }
+        root.updateBest();
+    }
+
+    void clear() {
+        root = new Node("");
+        terms = 0;
+    }
+
+    int size() {
+        return terms;
+    }
+
+    List<Completion> complete(String prefix, int limit) {
+        List<Completion> completions = new ArrayList<>();
+
+        // The prefix may end inside an edge label; every term below that edge still starts with it
+        Node node = root;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null) return completions;
+
+            int common = commonPrefix(node.label, key, i);
+            if (i + common == key.length()) break;
+            if (common < node.label.length()) return completions;
+            i += common;
+        }
+        if (node.best == 0) return completions;
+
+        // Terms and subtrees share one queue; a subtree's priority is its best count, so no term below it can
+        // outrank a term already taken
+        PriorityQueue<Object[]> queue = new PriorityQueue<>(PrefixTrie::compareEntries);
+        queue.add(new Object[]{node, node.best});
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Object[] entry = queue.poll();
+            if (entry[0] instanceof Completion) {
+                completions.add((Completion) entry[0]);
+                continue;
+            }
+
+            Node next = (Node) entry[0];
+            if (next.count > 0) queue.add(new Object[]{new Completion(next.term(), next.count), next.count});
+            for (Node child : next.children) {
+                queue.add(new Object[]{child, child.best});
+            }
+        }
+        return completions;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(from + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static int compareEntries(Object[] a, Object[] b) {
+        int compared = Integer.compare((int) b[1], (int) a[1]);
+        if (compared != 0) return compared;
+
+        boolean aTerm = a[0] instanceof Completion;
+        boolean bTerm = b[0] instanceof Completion;
+        if (aTerm && bTerm) return ((Completion) a[0]).term.compareTo(((Completion) b[0]).term);
+        return Boolean.compare(bTerm, aTerm);
+    }
+
+    static final class Completion {
+
+        final String term;
+        final int count;
+
+        Completion(String term, int count) {
+            this.term = term;
+            this.count = count;
+        }
+    }
+
+    private static final class Node {
+
+        private String label;
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // Every casing of the term ending here with how often it was added; nearly always a single one
+        private String[] casings = NO_CASINGS;
+        private int[] casingCounts = NO_COUNTS;
+        private int count;
+        private int best;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        // The most used casing, the alphabetically first one on a tie, so the result does not depend on the order
+        // in which terms were added
+        String term() {
+            int chosen = 0;
+            for (int i = 1; i < casings.length; i++) {
+                if (casingCounts[i] > casingCounts[chosen]
+                        || casingCounts[i] == casingCounts[chosen] && casings[i].compareTo(casings[chosen]) < 0) {
+                    chosen = i;
+                }
+            }
+            return casings[chosen];
+        }
+
+        void addCasing(String term) {
+            for (int i = 0; i < casings.length; i++) {
+                if (casings[i].equals(term)) {
+                    casingCounts[i]++;
+                    return;
+                }
+            }
+            casings = Arrays.copyOf(casings, casings.length + 1);
+            casingCounts = Arrays.copyOf(casingCounts, casingCounts.length + 1);
+            casings[casings.length - 1] = term;
+            casingCounts[casingCounts.length - 1] = 1;
+        }
+
+        boolean removeCasing(String term) {
+            for (int i = 0; i < casings.length; i++) {
+                if (!casings[i].equals(term)) continue;
+
+                if (--casingCounts[i] == 0) {
+                    String[] newCasings = new String[casings.length - 1];
+                    int[] newCounts = new int[casingCounts.length - 1];
+                    System.arraycopy(casings, 0, newCasings, 0, i);
+                    System.arraycopy(casingCounts, 0, newCounts, 0, i);
+                    System.arraycopy(casings, i + 1, newCasings, i, casings.length - i - 1);
+                    System.arraycopy(casingCounts, i + 1, newCounts, i, casingCounts.length - i - 1);
+                    casings = newCasings.length == 0 ? NO_CASINGS : newCasings;
+                    casingCounts = newCounts.length == 0 ? NO_COUNTS : newCounts;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        void addChild(Node child) {
+            int i = -Arrays.binarySearch(keys, child.label.charAt(0)) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            newKeys[i] = child.label.charAt(0);
+            newChildren[i] = child;
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        // The child keeps its first character, so it takes over the same slot
+        void replaceChild(Node child) {
+            children[Arrays.binarySearch(keys, child.label.charAt(0))] = child;
+        }
+
+        // Cuts the child's label after its first length characters, putting a new node at the cut
+        Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.keys = new char[]{child.label.charAt(0)};
+            middle.children = new Node[]{child};
+            middle.best = child.best;
+            replaceChild(middle);
+            return middle;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) return;
+
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys.length == 0 ? NO_KEYS : newKeys;
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        void updateBest() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.repository.ShipSpecifications;
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+import java.util.List;
+
+// Answers counts whose only filter is a range on one numeric field without touching the table. The validation
+// bounds keep the domains small: speed and rating in steps of 0.01, crew size by unit, production date by year.
+@Component
+public class RangeCounters {
+
+    private static final int FIRST_YEAR = 2800;
+    private static final int LAST_YEAR = 3019;
+
+    private long total;
+    private final BucketCounter speed = new BucketCounter(100, value -> (int) Math.floor(value * 100));
+    private final BucketCounter rating = new BucketCounter(8000, value -> (int) Math.floor(value * 100));
+    private final BucketCounter crewSize = new BucketCounter(10000, value -> (int) value);
+    private final BucketCounter prodDate = new BucketCounter(LAST_YEAR - FIRST_YEAR + 1,
+            value -> yearOf((long) value) - FIRST_YEAR);
+
+    public synchronized void reload(List<Ship> ships) {
+        total = 0;
+        speed.clear();
+        rating.clear();
+        crewSize.clear();
+        prodDate.clear();
+        for (Ship ship : ships) {
+            adjust(ship, 1);
+        }
+    }
+
+    public synchronized void add(Ship ship) {
+        adjust(ship, 1);
+    }
+
+    public synchronized void remove(Ship ship) {
+        adjust(ship, -1);
+    }
+
+    // null when the query filters on anything but a single numeric range
+    public synchronized Long count(ShipQuery query) {
+        if (query.getName() != null || query.getPlanet() != null || query.getShipType() != null
+                || query.isUsed() != null) {
+            return null;
+        }
+
+        boolean bySpeed = query.getMinSpeed() != null || query.getMaxSpeed() != null;
+        boolean byRating = query.getMinRating() != null || query.getMaxRating() != null;
+        boolean byCrewSize = query.getMinCrewSize() != null || query.getMaxCrewSize() != null;
+        boolean byProdDate = query.getAfter() != null || query.getBefore() != null;
+        int fields = (bySpeed ? 1 : 0) + (byRating ? 1 : 0) + (byCrewSize ? 1 : 0) + (byProdDate ? 1 : 0);
+
+        if (fields == 0) return total;
+        if (fields > 1) return null;
+
+        if (bySpeed) return speed.count(min(query.getMinSpeed()), max(query.getMaxSpeed()));
+        if (byRating) return rating.count(min(query.getMinRating()), max(query.getMaxRating()));
+        if (byCrewSize) return crewSize.count(min(query.getMinCrewSize()), max(query.getMaxCrewSize()));
+
+        double before = query.getBefore() == null
+                ? Double.POSITIVE_INFINITY
+                : ShipSpecifications.endOfYear(query.getBefore()).getTime() - 1;
+        return prodDate.count(min(query.getAfter()), before);
+    }
+
+    private void adjust(Ship ship, int delta) {
+        total += delta;
+        if (ship.getSpeed() != null) speed.add(ship.getSpeed(), delta);
+        if (ship.getRating() != null) rating.add(ship.getRating(), delta);
+        if (ship.getCrewSize() != null) crewSize.add(ship.getCrewSize(), delta);
+        if (ship.getProdDate() != null) {
+            prodDate.add(ShipSpecifications.startOfDay(ship.getProdDate().getTime()), delta);
+        }
+    }
+
+    private static double min(Number bound) {
+        return bound == null ? Double.NEGATIVE_INFINITY : bound.doubleValue();
+    }
+
+    private static double max(Number bound) {
+        return bound == null ? Double.POSITIVE_INFINITY : bound.doubleValue();
+    }
+
+    private static int yearOf(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR);
+    }
+}
@@ -0,0 +1,232 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Every ship's (rating, id) in a treap whose nodes know their subtree size, so both the rank of a ship and the
+// k-th ship in rating order are found in O(log n), and a page of k ships costs O(log n + k).
+@Component
+public class RatingLeaderboard {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random();
+
+    private final Map<Long, Double> ratings = new HashMap<>();
+    private Node root;
+
+    public void reload(List<Ship> ships) {
+        lock.writeLock().lock();
+        try {
+            ratings.clear();
+            root = null;
+            for (Ship ship : ships) {
+                insert(ship.getId(), ship.getRating());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Ship ship) {
+        lock.writeLock().lock();
+        try {
+            delete(ship.getId());
+            insert(ship.getId(), ship.getRating());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Zero-based position of the ship in (rating, id) order, or -1 if it is not on the board
+    public int position(Long id, boolean descending) {
+        lock.readLock().lock();
+        try {
+            Double rating = ratings.get(id);
+            if (rating == null) return -1;
+
+            int below = countBelow(root, rating, id);
+            return descending ? size(root) - 1 - below : below;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> page(boolean descending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            if (descending) {
+                collectDescending(root, offset, limit, ids);
+            } else {
+                collectAscending(root, offset, limit, ids);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Long id, Double rating) {
+        if (id == null || rating == null) return;
+
+        ratings.put(id, rating);
+        root = insert(root, new Node(rating, id, random.nextInt()));
+    }
+
+    private void delete(Long id) {
+        Double rating = ratings.remove(id);
+        if (rating != null) root = delete(root, rating, id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) return inserted;
+
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.rating, inserted.id);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            return update(inserted);
+        }
+        if (compare(inserted.rating, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return update(node);
+    }
+
+    private static Node delete(Node node, double rating, long id) {
+        if (node == null) return null;
+
+        int compared = compare(rating, id, node);
+        if (compared == 0) return merge(node.left, node.right);
+        if (compared < 0) {
+            node.left = delete(node.left, rating, id);
+        } else {
+            node.right = delete(node.right, rating, id);
+        }
+        return update(node);
+    }
+
+    // Keys below (rating, id) go left, the rest go right
+    private static Node[] split(Node node, double rating, long id) {
+        if (node == null) return new Node[2];
+
+        if (compare(rating, id, node) > 0) {
+            Node[] parts = split(node.right, rating, id);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, rating, id);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static int countBelow(Node node, double rating, long id) {
+        int count = 0;
+        while (node != null) {
+            if (compare(rating, id, node) > 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    // Skips whole subtrees that lie before the offset, then walks in order until the page is full
+    private static int collectAscending(Node node, int offset, int limit, List<Long> out) {
+        if (node == null || out.size() >= limit) return offset;
+        if (offset >= node.size) return offset - node.size;
+
+        offset = collectAscending(node.left, offset, limit, out);
+        if (out.size() >= limit) return offset;
+        if (offset > 0) {
+            offset--;
+        } else {
+            out.add(node.id);
+        }
+        return collectAscending(node.right, offset, limit, out);
+    }
+
+    private static int collectDescending(Node node, int offset, int limit, List<Long> out) {
+        if (node == null || out.size() >= limit) return offset;
+        if (offset >= node.size) return offset - node.size;
+
+        offset = collectDescending(node.right, offset, limit, out);
+        if (out.size() >= limit) return offset;
+        if (offset > 0) {
+            offset--;
+        } else {
+            out.add(node.id);
+        }
+        return collectDescending(node.left, offset, limit, out);
+    }
+
+    private static int compare(double rating, long id, Node node) {
+        int compared = Double.compare(rating, node.rating);
+        return compared != 0 ? compared : Long.compare(id, node.id);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static final class Node {
+
+        private final double rating;
+        private final long id;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(double rating, long id, int priority) {
+            this.rating = rating;
+            this.id = id;
+            this.priority = priority;
+        }
+    }
+}
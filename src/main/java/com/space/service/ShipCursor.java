@@ -0,0 +1,74 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.exceptions.BadRequestException;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+public class ShipCursor {
+
+    private final ShipOrder order;
+    private final Comparable<?> key;
+    private final long id;
+
+    private ShipCursor(ShipOrder order, Comparable<?> key, long id) {
+        this.order = order;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static ShipCursor of(ShipOrder order, Ship ship) {
+        switch (order) {
+            case SPEED:
+                return new ShipCursor(order, ship.getSpeed(), ship.getId());
+            case DATE:
+                return new ShipCursor(order, new Date(ship.getProdDate().getTime()), ship.getId());
+            case RATING:
+                return new ShipCursor(order, ship.getRating(), ship.getId());
+            default:
+                return new ShipCursor(ShipOrder.ID, ship.getId(), ship.getId());
+        }
+    }
+
+    public static ShipCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) throw new BadRequestException();
+
+            ShipOrder order = ShipOrder.valueOf(parts[0]);
+            long id = Long.parseLong(parts[2]);
+            switch (order) {
+                case SPEED:
+                case RATING:
+                    return new ShipCursor(order, Double.valueOf(parts[1]), id);
+                case DATE:
+                    return new ShipCursor(order, new Date(Long.parseLong(parts[1])), id);
+                default:
+                    return new ShipCursor(order, id, id);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String value = key instanceof Date ? String.valueOf(((Date) key).getTime()) : key.toString();
+        String raw = order.name() + ":" + value + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
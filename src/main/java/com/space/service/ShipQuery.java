@@ -0,0 +1,168 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipSpecifications;
+
+import java.util.Objects;
+
+public final class ShipQuery {
+
+    public static final ShipQuery EMPTY = new ShipQuery(null, null, null, null, null, null,
+            null, null, null, null, null, null);
+
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Long after;
+    private final Long before;
+    private final Boolean isUsed;
+    private final Double minSpeed;
+    private final Double maxSpeed;
+    private final Integer minCrewSize;
+    private final Integer maxCrewSize;
+    private final Double minRating;
+    private final Double maxRating;
+
+    public ShipQuery(String name, String planet, ShipType shipType, Long after, Long before, Boolean isUsed,
+                     Double minSpeed, Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                     Double minRating, Double maxRating) {
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.after = after;
+        this.before = before;
+        this.isUsed = isUsed;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.minCrewSize = minCrewSize;
+        this.maxCrewSize = maxCrewSize;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean isUsed() {
+        return isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public boolean isEmpty() {
+        return name == null && planet == null && shipType == null && after == null && before == null
+                && isUsed == null && minSpeed == null && maxSpeed == null && minCrewSize == null
+                && maxCrewSize == null && minRating == null && maxRating == null;
+    }
+
+    // Same semantics as ShipSpecifications.byFilter, for checking ships that are already in memory. The production
+    // date is compared as stored, i.e. by day.
+    public boolean matches(Ship ship) {
+        if (name != null && (ship.getName() == null || !ship.getName().contains(name))) return false;
+        if (planet != null && (ship.getPlanet() == null || !ship.getPlanet().contains(planet))) return false;
+        if (shipType != null && shipType != ship.getShipType()) return false;
+        if (isUsed != null && !isUsed.equals(ship.isUsed())) return false;
+
+        long prodDate = ship.getProdDate() == null ? 0 : ShipSpecifications.startOfDay(ship.getProdDate().getTime());
+        if (after != null && (ship.getProdDate() == null || prodDate < after)) return false;
+        if (before != null && (ship.getProdDate() == null
+                || prodDate >= ShipSpecifications.endOfYear(before).getTime())) {
+            return false;
+        }
+
+        return inRange(ship.getSpeed(), minSpeed, maxSpeed)
+                && inRange(ship.getCrewSize() == null ? null : ship.getCrewSize().doubleValue(),
+                minCrewSize == null ? null : minCrewSize.doubleValue(),
+                maxCrewSize == null ? null : maxCrewSize.doubleValue())
+                && inRange(ship.getRating(), minRating, maxRating);
+    }
+
+    private static boolean inRange(Double value, Double min, Double max) {
+        if (min == null && max == null) return true;
+        if (value == null) return false;
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipQuery that = (ShipQuery) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(planet, that.planet) &&
+                shipType == that.shipType &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(isUsed, that.isUsed) &&
+                Objects.equals(minSpeed, that.minSpeed) &&
+                Objects.equals(maxSpeed, that.maxSpeed) &&
+                Objects.equals(minCrewSize, that.minCrewSize) &&
+                Objects.equals(maxCrewSize, that.maxCrewSize) &&
+                Objects.equals(minRating, that.minRating) &&
+                Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    @Override
+    public String toString() {
+        return "ShipQuery{" +
+                "name='" + name + '\'' +
+                ", planet='" + planet + '\'' +
+                ", shipType=" + shipType +
+                ", after=" + after +
+                ", before=" + before +
+                ", isUsed=" + isUsed +
+                ", minSpeed=" + minSpeed +
+                ", maxSpeed=" + maxSpeed +
+                ", minCrewSize=" + minCrewSize +
+                ", maxCrewSize=" + maxCrewSize +
+                ", minRating=" + minRating +
+                ", maxRating=" + maxRating +
+                '}';
+    }
+}
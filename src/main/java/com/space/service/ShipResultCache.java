@@ -0,0 +1,98 @@
+package com.space.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// LRU cache of filter results (id lists and counts) bounded by entry count and by the number of ids held.
+// Every write to the fleet bumps the version; entries remember the version they were computed under, and a
+// result computed while a write was in flight is never stored.
+@Component
+public class ShipResultCache {
+
+    static final int MAX_ENTRIES = 4096;
+    static final long MAX_WEIGHT = 1 << 18;
+
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long weight;
+
+    public long version() {
+        return version.get();
+    }
+
+    public synchronized Object get(Object key, long version) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) remove(key);
+        misses.increment();
+        return null;
+    }
+
+    public synchronized void put(Object key, long version, Object value, long weight) {
+        // A single result larger than a sixteenth of the budget would flush everything else
+        if (version != this.version.get() || weight > MAX_WEIGHT / 16) return;
+
+        remove(key);
+        entries.put(key, new Entry(value, version, weight));
+        this.weight += weight;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > MAX_ENTRIES || this.weight > MAX_WEIGHT) && eldest.hasNext()) {
+            this.weight -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate() {
+        version.incrementAndGet();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("entries", entries.size());
+        statistics.put("weight", weight);
+        statistics.put("version", version.get());
+        statistics.put("hits", hitCount);
+        statistics.put("misses", missCount);
+        statistics.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        statistics.put("missRate", requests == 0 ? 0.0 : (double) missCount / requests);
+        statistics.put("evictions", evictions.sum());
+        return statistics;
+    }
+
+    private void remove(Object key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) weight -= removed.weight;
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long version;
+        private final long weight;
+
+        Entry(Object value, long version, long weight) {
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+        }
+    }
+}
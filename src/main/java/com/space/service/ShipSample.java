@@ -0,0 +1,112 @@
+package com.space.service;
+
+import com.space.model.CountEstimate;
+import com.space.model.Ship;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// A uniform sample of at most CAPACITY ships, kept uniform across inserts and deletes with random pairing:
+// every delete is remembered as a debt, and later inserts pay it back, joining the sample with the probability
+// that the deleted ships had been in it. Estimates read only the sample, so their cost does not grow with the
+// fleet.
+@Component
+public class ShipSample {
+
+    static final int CAPACITY = 1024;
+    // Two-sided 95% normal quantile
+    private static final double Z = 1.96;
+
+    private final Random random = new Random();
+
+    private final List<Ship> sample = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long population;
+    private long sampledDeletions;
+    private long unsampledDeletions;
+
+    public synchronized void reload(List<Ship> ships) {
+        sample.clear();
+        positions.clear();
+        population = 0;
+        sampledDeletions = 0;
+        unsampledDeletions = 0;
+        for (Ship ship : ships) {
+            add(ship);
+        }
+    }
+
+    public synchronized void add(Ship ship) {
+        population++;
+        long deletions = sampledDeletions + unsampledDeletions;
+        if (deletions == 0) {
+            if (sample.size() < CAPACITY) {
+                append(ship);
+            } else if (random.nextDouble() * population < CAPACITY) {
+                int victim = random.nextInt(sample.size());
+                positions.remove(sample.get(victim).getId());
+                sample.set(victim, ship);
+                positions.put(ship.getId(), victim);
+            }
+        } else if (random.nextDouble() * deletions < sampledDeletions) {
+            append(ship);
+            sampledDeletions--;
+        } else {
+            unsampledDeletions--;
+        }
+    }
+
+    public synchronized void update(Ship ship) {
+        Integer position = positions.get(ship.getId());
+        if (position != null) sample.set(position, ship);
+    }
+
+    public synchronized void remove(Ship ship) {
+        population--;
+        Integer position = positions.remove(ship.getId());
+        if (position == null) {
+            unsampledDeletions++;
+            return;
+        }
+
+        Ship last = sample.remove(sample.size() - 1);
+        if (position < sample.size()) {
+            sample.set(position, last);
+            positions.put(last.getId(), position);
+        }
+        sampledDeletions++;
+    }
+
+    // Wilson score interval for the matching fraction, scaled to the fleet. Unlike the Wald interval it keeps a
+    // width when none or all of the sample matches. The finite population correction enters as a larger effective
+    // sample; a sample holding the whole fleet is a census and its count is exact.
+    public synchronized CountEstimate estimate(ShipQuery query) {
+        int size = sample.size();
+        if (size == 0) return new CountEstimate(0, 0, 0, 0.95, 0, population);
+
+        int matches = 0;
+        for (Ship ship : sample) {
+            if (query.matches(ship)) matches++;
+        }
+
+        double fraction = (double) matches / size;
+        long estimate = Math.round(fraction * population);
+        double correction = population > 1 ? (double) (population - size) / (population - 1) : 0;
+        if (correction <= 0) return new CountEstimate(estimate, estimate, estimate, 0.95, size, population);
+
+        double n = size / correction;
+        double z2 = Z * Z;
+        double centre = (fraction + z2 / (2 * n)) / (1 + z2 / n);
+        double error = Z / (1 + z2 / n) * Math.sqrt(fraction * (1 - fraction) / n + z2 / (4 * n * n));
+
+        long lower = Math.max(0, (long) Math.floor((centre - error) * population));
+        long upper = Math.min(population, (long) Math.ceil((centre + error) * population));
+        return new CountEstimate(estimate, Math.min(lower, estimate), Math.max(upper, estimate), 0.95, size,
+                population);
+    }
+
+    private void append(Ship ship) {
+        positions.put(ship.getId(), sample.size());
+        sample.add(ship);
+    }
+}
@@ -1,35 +1,50 @@
 package com.space.service;
 
-import com.space.controller.ShipOrder;
+import com.space.model.CountEstimate;
+import com.space.model.QueryPlan;
 import com.space.model.Ship;
+import com.space.model.ShipAggregates;
+import com.space.model.ShipPage;
+import com.space.model.ShipRank;
 import com.space.model.ShipType;
+import com.space.model.Suggestion;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public interface ShipService {
 
     List<Ship> getAllShips();
-    List<Ship> getAllShipsByFilter(String name, String planet, ShipType shipType, Long after, Long before,
-                           Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
-                           Double minRating, Double maxRating);
-    List<Ship> getShipListByOrderByPage(List<Ship> ships, ShipOrder order, Integer pageNumber, Integer pageSize);
+    List<Ship> getAllShipsByFilter(ShipQuery query);
+    List<Ship> getShipListByOrderByPage(ShipQuery query, ShipSort sort, Integer pageNumber, Integer pageSize);
+    ShipPage getShipPage(ShipQuery query, ShipSort sort, Integer pageNumber, Integer pageSize, boolean withFacets);
+    List<Ship> getShipListByCursor(ShipQuery query, ShipSort sort, String cursor, Integer pageSize);
+    QueryPlan explain(ShipQuery query, ShipSort sort, Integer pageNumber, Integer pageSize);
+    List<Ship> getLeaderboard(Integer pageNumber, Integer pageSize);
+    ShipRank getShipRank(String id);
+    List<Suggestion> getSuggestions(String field, String prefix, Integer limit);
     Ship createNewShip(Ship ship);
+    List<Ship> createNewShips(List<Ship> ships);
     Ship createNewShip(String name, String planet, ShipType shipType, Long prodDate,
                        Boolean isUsed, Double speed, Integer crewSize);
     Ship updateShip(Long id, Ship ship);
+    int updateShips(ShipQuery query, Ship patch);
 
     Ship updateShip(Long id, String name, String planet, ShipType shipType, Long prodDate,
                     Boolean isUsed, Double speed, Integer crewSize);
 
     void deleteShipById(String id);
+    int deleteShips(ShipQuery query);
 
     Ship getShipById(String id);
 
-    Integer getShipCount(String name, String planet, ShipType shipType, Long after, Long before, Boolean isUsed,
-                         Double minSpeed, Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
-                         Double minRaring, Double maxRating);
+    Integer getShipCount(ShipQuery query);
+    CountEstimate getApproximateShipCount(ShipQuery query);
+    ShipAggregates getAggregates(ShipQuery query);
+    Map<String, Object> getEngineStatistics();
+    Map<String, Object> getCacheStatistics();
     double getRating(Double speed, Boolean isUsed, Date prodDate);
 }
@@ -2,24 +2,77 @@ package com.space.service;
 
 import com.space.controller.ShipOrder;
 import com.space.exceptions.BadRequestException;
+import com.space.exceptions.ConflictException;
 import com.space.exceptions.NotFoundException;
+import com.space.model.CountEstimate;
 import com.space.model.Ship;
+import com.space.model.QueryPlan;
+import com.space.model.ShipAggregates;
+import com.space.model.ShipPage;
+import com.space.model.ShipRank;
 import com.space.model.ShipType;
+import com.space.model.Suggestion;
 import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecifications;
+import com.space.service.memory.FleetIndex;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Service
-public class ShipServiceImpl implements ShipService {
+public class ShipServiceImpl implements ShipService, InitializingBean {
+
+    private static final int MAX_BATCH = 10000;
+    private static final int BATCH_CHUNK = 500;
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    private static final int WRITE_LOCK_STRIPES = 64;
 
     private final ShipRepository shipRepository;
+    private final FleetIndex fleetIndex;
+    private final ShipResultCache resultCache;
+    private final SingleFlight singleFlight;
+    private final FleetAggregates fleetAggregates;
+    private final RangeCounters rangeCounters;
+    private final ShipSample shipSample;
+    private final RatingLeaderboard leaderboard;
+    private final ShipSuggestions suggestions;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Lock[] writeLocks = new Lock[WRITE_LOCK_STRIPES];
 
     @Autowired
-    public ShipServiceImpl(ShipRepository shipRepository) {
+    public ShipServiceImpl(ShipRepository shipRepository, Optional<FleetIndex> fleetIndex,
+                           ShipResultCache resultCache, SingleFlight singleFlight,
+                           FleetAggregates fleetAggregates, RangeCounters rangeCounters, ShipSample shipSample,
+                           RatingLeaderboard leaderboard, ShipSuggestions suggestions,
+                           PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory) {
         this.shipRepository = shipRepository;
+        this.fleetIndex = fleetIndex.orElse(null);
+        this.resultCache = resultCache;
+        this.singleFlight = singleFlight;
+        this.fleetAggregates = fleetAggregates;
+        this.rangeCounters = rangeCounters;
+        this.shipSample = shipSample;
+        this.leaderboard = leaderboard;
+        this.suggestions = suggestions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
     }
 
     @Override
@@ -28,113 +81,220 @@ public class ShipServiceImpl implements ShipService {
     }
 
     @Override
-    public List<Ship> getAllShipsByFilter(String name, String planet, ShipType shipType, Long after,
-                                          Long before, Boolean isUsed, Double minSpeed, Double maxSpeed,
-                                          Integer minCrewSize, Integer maxCrewSize, Double minRating,
-                                          Double maxRating) {
+    public List<Ship> getAllShipsByFilter(ShipQuery query) {
+        return cachedShips(Arrays.asList("all", query), () -> {
+            if (fleetIndex != null) return fleetIndex.find(query, ShipSort.BY_ID, null, 0, Integer.MAX_VALUE);
 
-        List<Ship> shipList = getAllShips();
+            return shipRepository.findAll(ShipSpecifications.byFilter(query));
+        });
+    }
 
-        if (name != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getName().contains(name))
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public List<Ship> getShipListByOrderByPage(ShipQuery query, ShipSort sort, Integer pageNumber,
+                                               Integer pageSize) {
+        if (pageNumber == null) pageNumber = 0;
+        if (pageSize == null) pageSize = 3;
+        if (pageNumber < 0 || pageSize < 1) throw new BadRequestException();
 
-        if (planet != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getPlanet().contains(planet))
-                    .collect(Collectors.toList());
-        }
+        int offset = offsetOf(pageNumber, pageSize);
+        int limit = pageSize;
 
-        if (minSpeed != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getSpeed() >= minSpeed)
-                    .collect(Collectors.toList());
+        // The whole fleet in rating order is a walk over the leaderboard, no filtering or sorting needed
+        if (query.isEmpty() && sort.isSingleKey() && sort.getPrimaryKey().getField() == ShipOrder.RATING) {
+            return getShipsById(leaderboard.page(sort.getPrimaryKey().isDescending(), offset, limit));
         }
 
-        if (maxSpeed != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getSpeed() <= maxSpeed)
-                    .collect(Collectors.toList());
-        }
+        return cachedShips(Arrays.asList("page", query, sort, offset, limit), () -> {
+            if (fleetIndex != null) return fleetIndex.find(query, sort, null, offset, limit);
 
-        if (minRating != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getRating() >= minRating)
-                    .collect(Collectors.toList());
-        }
+            return shipRepository.findPage(ShipSpecifications.byFilter(query),
+                    PageRequest.of(offset / limit, limit, getSort(sort)));
+        });
+    }
 
-        if (maxRating != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getRating() <= maxRating)
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public ShipPage getShipPage(ShipQuery query, ShipSort sort, Integer pageNumber, Integer pageSize,
+                                boolean withFacets) {
+        if (pageNumber == null) pageNumber = 0;
+        if (pageSize == null) pageSize = 3;
 
-        if (shipType != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getShipType().equals(shipType))
-                    .collect(Collectors.toList());
+        List<Ship> ships = getShipListByOrderByPage(query, sort, pageNumber, pageSize);
+
+        Map<String, Map<Object, Long>> facets = null;
+        long count;
+        if (withFacets) {
+            // Every ship has a type, so the shipType facet adds up to the number of matches
+            facets = getFacets(query);
+            count = 0;
+            for (long typeCount : facets.get("shipType").values()) {
+                count += typeCount;
+            }
+        } else {
+            // A short first page already holds every match, so there is nothing left to count
+            count = pageNumber == 0 && ships.size() < pageSize ? ships.size() : getShipCount(query);
         }
 
-        if (after != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getProdDate().getTime() >= after)
-                    .collect(Collectors.toList());
-        }
+        return new ShipPage(ships, count, facets);
+    }
 
-        if (before != null) {
-            int year = new Date(before).getYear() + 1900;
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getProdDate().getYear() + 1900 <= year)
-                    .collect(Collectors.toList());
-        }
+    private Map<String, Map<Object, Long>> getFacets(ShipQuery query) {
+        return cached(Arrays.asList("facets", query), ShipType.values().length + 2, () -> {
+            if (fleetIndex != null) return fleetIndex.facets(query);
+
+            // Both facets are rolled up from a single GROUP BY shipType, isUsed
+            Map<ShipType, Long> shipTypes = new EnumMap<>(ShipType.class);
+            Map<Boolean, Long> isUsed = new TreeMap<>();
+            for (Object[] row : shipRepository.countGroupedBy(ShipSpecifications.byFilter(query),
+                    "shipType", "isUsed")) {
+                shipTypes.merge((ShipType) row[0], (Long) row[2], Long::sum);
+                isUsed.merge((Boolean) row[1], (Long) row[2], Long::sum);
+            }
+
+            Map<String, Map<Object, Long>> facets = new LinkedHashMap<>();
+            facets.put("shipType", new LinkedHashMap<>(shipTypes));
+            facets.put("isUsed", new LinkedHashMap<>(isUsed));
+            return facets;
+        });
+    }
 
-        if (minCrewSize != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getCrewSize() >= minCrewSize)
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public List<Ship> getLeaderboard(Integer pageNumber, Integer pageSize) {
+        return getShipListByOrderByPage(ShipQuery.EMPTY, ShipSort.of(ShipOrder.RATING, Sort.Direction.DESC),
+                pageNumber, pageSize);
+    }
 
-        if (maxCrewSize != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.getCrewSize() <= maxCrewSize)
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public ShipRank getShipRank(String id) {
+        if (!isValidId(id)) throw new BadRequestException();
+
+        Ship ship = getShipById(id);
+        int position = leaderboard.position(ship.getId(), true);
+        if (position < 0) throw new NotFoundException();
+
+        return new ShipRank(ship.getId(), ship.getRating(), position + 1, leaderboard.size());
+    }
+
+    @Override
+    public List<Suggestion> getSuggestions(String field, String prefix, Integer limit) {
+        if (limit == null) limit = 10;
+        if (limit < 1 || limit > 100) throw new BadRequestException();
+
+        return suggestions.suggest(field, prefix, limit);
+    }
 
-        if (isUsed != null) {
-            shipList = shipList.stream()
-                    .filter(ship -> ship.isUsed().equals(isUsed))
-                    .collect(Collectors.toList());
+    @Override
+    public ShipAggregates getAggregates(ShipQuery query) {
+        if (query.isEmpty()) return fleetAggregates.snapshot();
+
+        return cached(Arrays.asList("aggregates", query), 64, () -> {
+            if (fleetIndex != null) return fleetIndex.aggregate(query);
+
+            AggregateBuilder builder = new AggregateBuilder();
+            for (Object[] row : shipRepository.aggregateGroups(ShipSpecifications.byFilter(query))) {
+                long count = (Long) row[3];
+                builder.addGroup((ShipType) row[0], (String) row[1], (Boolean) row[2], count);
+                builder.speed().add(count, number(row[4]), number(row[5]), number(row[6]));
+                builder.rating().add(count, number(row[7]), number(row[8]), number(row[9]));
+                builder.crewSize().add(count, number(row[10]), number(row[11]), number(row[12]));
+            }
+            return builder.build();
+        });
+    }
+
+    private static double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    @Override
+    public List<Ship> getShipListByCursor(ShipQuery query, ShipSort sort, String cursor, Integer pageSize) {
+        if (pageSize == null) pageSize = 3;
+        ShipOrder order = sort.getSeekOrder();
+        if (pageSize < 1 || order == null) throw new BadRequestException();
+
+        ShipCursor shipCursor = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            shipCursor = ShipCursor.decode(cursor);
+            if (shipCursor.getOrder() != order) throw new BadRequestException();
         }
 
-        return shipList;
+        if (fleetIndex != null) return fleetIndex.find(query, sort, shipCursor, 0, pageSize);
+
+        Specification<Ship> specification = ShipSpecifications.byFilter(query);
+        if (shipCursor != null) specification = specification.and(ShipSpecifications.after(shipCursor));
+
+        return shipRepository.findPage(specification, PageRequest.of(0, pageSize, getSort(sort)));
     }
 
     @Override
-    public List<Ship> getShipListByOrderByPage(List<Ship> ships, ShipOrder order, Integer pageNumber, Integer pageSize) {
+    public QueryPlan explain(ShipQuery query, ShipSort sort, Integer pageNumber, Integer pageSize) {
         if (pageNumber == null) pageNumber = 0;
         if (pageSize == null) pageSize = 3;
+        if (pageNumber < 0 || pageSize < 1) throw new BadRequestException();
+
+        int offset = offsetOf(pageNumber, pageSize);
+        if (fleetIndex != null) return fleetIndex.explain(query, sort, offset, pageSize);
+
+        Specification<Ship> specification = ShipSpecifications.byFilter(query);
+        QueryPlan plan = new QueryPlan("database");
+
+        long start = System.nanoTime();
+        long count = shipRepository.count(specification);
+        plan.addStage("filter", "SQL WHERE", -1, count, System.nanoTime() - start);
 
-        return ships.stream().
-                skip(pageNumber * pageSize).
-                limit(pageSize).
-                sorted(getComparator(order)).
-                collect(Collectors.toList());
+        start = System.nanoTime();
+        List<Ship> ships = shipRepository.findPage(specification,
+                PageRequest.of(offset / pageSize, pageSize, getSort(sort)));
+        plan.addStage("order by " + sort + " limit " + pageSize, "SQL ORDER BY LIMIT", pageSize, ships.size(), System.nanoTime() - start);
+
+        return plan;
     }
 
     @Override
     public Ship createNewShip(Ship ship) {
 
+        prepareNewShip(ship);
+
+        Ship saved = shipRepository.save(ship);
+        onSaved(null, saved);
+
+        return saved;
+    }
+
+    // The whole batch is validated before anything is written; each chunk is one transaction whose inserts
+    // Hibernate sends in JDBC batches
+    @Override
+    public List<Ship> createNewShips(List<Ship> ships) {
+        if (ships == null || ships.isEmpty() || ships.size() > MAX_BATCH) throw new BadRequestException();
+
+        for (Ship ship : ships) {
+            prepareNewShip(ship);
+        }
+
+        List<Ship> created = new ArrayList<>(ships.size());
+        for (int from = 0; from < ships.size(); from += BATCH_CHUNK) {
+            List<Ship> chunk = ships.subList(from, Math.min(from + BATCH_CHUNK, ships.size()));
+            List<Ship> saved = transactionTemplate.execute(status -> shipRepository.saveAll(chunk));
+
+            for (Ship ship : saved) {
+                onSaved(null, ship);
+            }
+            created.addAll(saved);
+        }
+        return created;
+    }
+
+    // Ids and versions are assigned on insert, whatever the request carried
+    private void prepareNewShip(Ship ship) {
         if (!checkValidParams(ship)) throw new BadRequestException();
 
+        ship.setId(null);
+        ship.setVersion(null);
+
         if (ship.isUsed() == null) ship.setUsed(false);
 
         Double speed = Math.round(ship.getSpeed() * 100) * 1.0 / 100;
 
         ship.setRating(getRating(speed, ship.isUsed(), ship.getProdDate()));
-
-        return shipRepository.save(ship);
     }
 
     @Override
@@ -147,55 +307,60 @@ public class ShipServiceImpl implements ShipService {
     public Ship updateShip(Long id, Ship ship) {
 
         if (!isValidId(id.toString())) throw new BadRequestException();
-        if (!shipRepository.existsById(id)) throw new NotFoundException();
-
-        Ship oldShip = getShipById(id.toString());
-
-        String name = ship.getName();
-        if (name != null) {
-            if (name.length() > 50 || name.isEmpty()) throw new BadRequestException();
-            oldShip.setName(name);
-        }
-
-        if (ship.getPlanet() != null) {
-            if (ship.getPlanet().length() > 50 || ship.getPlanet().isEmpty()) throw new BadRequestException();
-            oldShip.setPlanet(ship.getPlanet());
-        }
-
-        if (ship.getShipType() != null) {
-            oldShip.setShipType(ship.getShipType());
-        }
-
-        if (ship.isUsed() != null) {
-            oldShip.setUsed(ship.isUsed());
-        }
-
-        if (ship.getProdDate() != null) {
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(ship.getProdDate());
-            int prodDate = cal.get(Calendar.YEAR);
-            if (prodDate < 2800 || prodDate > 3019) throw new BadRequestException();
-            oldShip.setProdDate(ship.getProdDate());
-        }
+        checkPatch(ship);
 
-        Double speed = ship.getSpeed();
-        if (speed != null) {
-            if (speed < 0.01d || speed > 0.99d) throw new BadRequestException();
-            oldShip.setSpeed(speed);
+        // Held until the derived structures have taken the change, so they see this ship's commits in order
+        Lock lock = writeLock(id);
+        lock.lock();
+        try {
+            // The row is read and written in one transaction; the version column makes a concurrent write fail the
+            // commit instead of being overwritten, and the patch is then applied again to the fresh row
+            for (int attempt = 1; ; attempt++) {
+                Ship[] previous = new Ship[1];
+                try {
+                    Ship saved = transactionTemplate.execute(status -> {
+                        Ship oldShip = shipRepository.findById(id).orElseThrow(NotFoundException::new);
+                        previous[0] = copyOf(oldShip);
+
+                        if (ship.getName() != null) oldShip.setName(ship.getName());
+                        if (ship.getPlanet() != null) oldShip.setPlanet(ship.getPlanet());
+                        if (ship.getShipType() != null) oldShip.setShipType(ship.getShipType());
+                        if (ship.isUsed() != null) oldShip.setUsed(ship.isUsed());
+                        if (ship.getProdDate() != null) oldShip.setProdDate(ship.getProdDate());
+                        if (ship.getSpeed() != null) oldShip.setSpeed(ship.getSpeed());
+                        if (ship.getCrewSize() != null) oldShip.setCrewSize(ship.getCrewSize());
+
+                        oldShip.setRating(getRating(oldShip.getSpeed(), oldShip.isUsed(), oldShip.getProdDate()));
+                        return oldShip;
+                    });
+                    onSaved(previous[0], saved);
+
+                    return saved;
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    if (attempt == MAX_UPDATE_ATTEMPTS) throw new ConflictException();
+                }
+            }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        Integer crewSize = ship.getCrewSize();
-
-        if (crewSize != null) {
-            if (crewSize < 1 || crewSize > 9999) throw new BadRequestException();
-
-            oldShip.setCrewSize(crewSize);
+    // One UPDATE for every matching row; the rating is recomputed by the statement itself when its inputs change
+    @Override
+    public int updateShips(ShipQuery query, Ship patch) {
+        if (patch == null) throw new BadRequestException();
+        checkPatch(patch);
+        if (patch.getName() == null && patch.getPlanet() == null && patch.getShipType() == null
+                && patch.isUsed() == null && patch.getProdDate() == null && patch.getSpeed() == null
+                && patch.getCrewSize() == null) {
+            throw new BadRequestException();
         }
 
-        oldShip.setRating(getRating(oldShip.getSpeed(), oldShip.isUsed(), oldShip.getProdDate()));
-
-        return shipRepository.save(oldShip);
-
+        // Which rows matched is only known to the database, so the derived structures are rebuilt once afterwards
+        int updated = transactionTemplate.execute(status ->
+                shipRepository.updateMatching(ShipSpecifications.byFilter(query), patch));
+        if (updated > 0) rebuild();
+        return updated;
     }
 
     @Override
@@ -210,9 +375,38 @@ public class ShipServiceImpl implements ShipService {
 
         Long idDelete = Long.parseLong(id);
 
-        if (!shipRepository.existsById(idDelete)) throw new NotFoundException();
+        Lock lock = writeLock(idDelete);
+        lock.lock();
+        try {
+            // The row is removed as a loaded entity so that only its own entry leaves the second-level cache; the
+            // versioned DELETE fails on a concurrent write, and the next attempt sees the fresh row or its absence
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Ship ship = transactionTemplate.execute(status -> {
+                        Ship oldShip = shipRepository.findById(idDelete).orElseThrow(NotFoundException::new);
+                        shipRepository.delete(oldShip);
+                        return oldShip;
+                    });
+                    onDeleted(ship);
+                    return;
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    if (attempt == MAX_UPDATE_ATTEMPTS) throw new ConflictException();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        shipRepository.deleteById(idDelete);
+    // Without any filter this would empty the table, which is never what a bulk delete is meant for
+    @Override
+    public int deleteShips(ShipQuery query) {
+        if (query.isEmpty()) throw new BadRequestException();
+
+        int deleted = transactionTemplate.execute(status ->
+                shipRepository.deleteMatching(ShipSpecifications.byFilter(query)));
+        if (deleted > 0) rebuild();
+        return deleted;
     }
 
     @Override
@@ -222,18 +416,41 @@ public class ShipServiceImpl implements ShipService {
 
         Long idGet = Long.parseLong(id);
 
-        if (!shipRepository.existsById(idGet)) throw new NotFoundException();
+        return shipRepository.findById(idGet).orElseThrow(NotFoundException::new);
+    }
 
-        return shipRepository.findById(idGet).orElse(null);
+    @Override
+    public Integer getShipCount(ShipQuery query) {
+        Long count = rangeCounters.count(query);
+        if (count != null) return count.intValue();
+
+        return cached(Arrays.asList("count", query), 1, () -> {
+            if (fleetIndex != null) return (int) fleetIndex.count(query);
+
+            return (int) shipRepository.count(ShipSpecifications.byFilter(query));
+        });
     }
 
     @Override
-    public Integer getShipCount(String name, String planet, ShipType shipType, Long after, Long before,
-                                Boolean isUsed, Double minSpeed, Double maxSpeed,
-                                Integer minCrewSize, Integer maxCrewSize, Double minRaring, Double maxRating) {
+    public CountEstimate getApproximateShipCount(ShipQuery query) {
+        return shipSample.estimate(query);
+    }
 
-        return getAllShipsByFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRaring, maxRating).size();
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> statistics = resultCache.getStatistics();
+        statistics.put("singleFlight", singleFlight.getStatistics());
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Object> getEngineStatistics() {
+        if (fleetIndex == null) return Collections.singletonMap("engine", "database");
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("engine", "memory");
+        statistics.putAll(fleetIndex.getStatistics());
+        return statistics;
     }
 
     @Override
@@ -253,21 +470,155 @@ public class ShipServiceImpl implements ShipService {
     }
 
 
-    private Comparator<Ship> getComparator(ShipOrder order) {
-        if (order == null) return Comparator.comparing(Ship::getId);
+    @SuppressWarnings("unchecked")
+    private <V> V cached(List<Object> key, long weight, Supplier<V> loader) {
+        long version = resultCache.version();
+        Object cached = resultCache.get(key, version);
+        if (cached != null) return (V) cached;
 
-        switch (order.getFieldName()) {
-            case "id":
-                return Comparator.comparing(Ship::getId);
-            case "speed":
-                return Comparator.comparing(Ship::getSpeed);
-            case "prodDate":
-                return Comparator.comparing(Ship::getProdDate);
-            case "rating":
-                return Comparator.comparing(Ship::getRating);
+        V value = singleFlight.execute(Arrays.asList(version, key), loader);
+        resultCache.put(key, version, value, weight);
+        return value;
+    }
+
+    // Only ids are cached; a hit loads the ships by primary key, which is cheaper than filtering and sorting again
+    @SuppressWarnings("unchecked")
+    private List<Ship> cachedShips(List<Object> key, Supplier<List<Ship>> loader) {
+        long version = resultCache.version();
+        List<Long> ids = (List<Long>) resultCache.get(key, version);
+        if (ids != null) return getShipsById(ids);
+
+        // Identical requests arriving while this one is evaluated wait for its result instead of running their own
+        List<Ship> ships = singleFlight.execute(Arrays.asList(version, key), loader);
+        ids = new ArrayList<>(ships.size());
+        for (Ship ship : ships) {
+            ids.add(ship.getId());
         }
+        resultCache.put(key, version, ids, ids.size() + 1);
+        return ships;
+    }
 
-        return null;
+    private List<Ship> getShipsById(List<Long> ids) {
+        if (fleetIndex != null) return fleetIndex.get(ids);
+        if (ids.isEmpty()) return new ArrayList<>();
+
+        Map<Long, Ship> byId = new HashMap<>();
+        for (Ship ship : shipRepository.findAllById(ids)) {
+            byId.put(ship.getId(), ship);
+        }
+        List<Ship> ships = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Ship ship = byId.get(id);
+            if (ship != null) ships.add(ship);
+        }
+        return ships;
+    }
+
+    // Everything derived from the fleet follows each write; "previous" is null for a new ship
+    private void onSaved(Ship previous, Ship saved) {
+        if (fleetIndex != null) fleetIndex.put(saved);
+        if (previous != null) {
+            fleetAggregates.remove(previous);
+            rangeCounters.remove(previous);
+            suggestions.remove(previous);
+            shipSample.update(saved);
+        } else {
+            shipSample.add(saved);
+        }
+        fleetAggregates.add(saved);
+        rangeCounters.add(saved);
+        leaderboard.put(saved);
+        suggestions.add(saved);
+        resultCache.invalidate();
+    }
+
+    private void onDeleted(Ship ship) {
+        if (fleetIndex != null) fleetIndex.remove(ship.getId());
+        fleetAggregates.remove(ship);
+        rangeCounters.remove(ship);
+        shipSample.remove(ship);
+        leaderboard.remove(ship.getId());
+        suggestions.remove(ship);
+        resultCache.invalidate();
+    }
+
+    // The fleet is read once at startup and handed to every derived structure
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    // Rebuilds everything derived from the table, for when rows changed behind the service's back
+    void refresh() {
+        entityManagerFactory.getCache().evictAll();
+        rebuild();
+    }
+
+    // One read of the table feeds every derived structure. All write stripes are held meanwhile, so no single-ship
+    // write sits between its commit and its delta: the read already holds every change made so far.
+    private void rebuild() {
+        lockAllShips();
+        try {
+            List<Ship> ships = shipRepository.findAll(Sort.by("id"));
+            if (fleetIndex != null) fleetIndex.reload(ships);
+            fleetAggregates.reload(ships);
+            rangeCounters.reload(ships);
+            shipSample.reload(ships);
+            leaderboard.reload(ships);
+            suggestions.reload(ships);
+            resultCache.invalidate();
+        } finally {
+            unlockAllShips();
+        }
+    }
+
+    private static Ship copyOf(Ship ship) {
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(ship.getProdDate());
+        copy.setUsed(ship.isUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        return copy;
+    }
+
+    // Writes to one ship take its stripe before the transaction starts and release it only after onSaved/onDeleted
+    private Lock writeLock(long id) {
+        return writeLocks[(int) (id & (WRITE_LOCK_STRIPES - 1))];
+    }
+
+    // The stripes are always taken in the same order, so two rebuilds cannot deadlock
+    private void lockAllShips() {
+        for (Lock lock : writeLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllShips() {
+        for (int i = writeLocks.length - 1; i >= 0; i--) {
+            writeLocks[i].unlock();
+        }
+    }
+
+    private Sort getSort(ShipSort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (ShipSort.Key key : sort.getKeys()) {
+            orders.add(new Sort.Order(key.getDirection(), key.getField().getFieldName()));
+        }
+        return Sort.by(orders);
+    }
+
+    // A page past Integer.MAX_VALUE rows cannot exist, so an offset that overflows is a bad request
+    private static int offsetOf(int pageNumber, int pageSize) {
+        try {
+            return Math.multiplyExact(pageNumber, pageSize);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException();
+        }
     }
 
     private boolean isValidId(String id) {
@@ -281,6 +632,28 @@ public class ShipServiceImpl implements ShipService {
         return true;
     }
 
+    // Rules for the fields an update sets; absent fields are left alone
+    private static void checkPatch(Ship patch) {
+        String name = patch.getName();
+        if (name != null && (name.length() > 50 || name.isEmpty())) throw new BadRequestException();
+
+        String planet = patch.getPlanet();
+        if (planet != null && (planet.length() > 50 || planet.isEmpty())) throw new BadRequestException();
+
+        if (patch.getProdDate() != null) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(patch.getProdDate());
+            int prodDate = cal.get(Calendar.YEAR);
+            if (prodDate < 2800 || prodDate > 3019) throw new BadRequestException();
+        }
+
+        Double speed = patch.getSpeed();
+        if (speed != null && (speed < 0.01d || speed > 0.99d)) throw new BadRequestException();
+
+        Integer crewSize = patch.getCrewSize();
+        if (crewSize != null && (crewSize < 1 || crewSize > 9999)) throw new BadRequestException();
+    }
+
     private boolean checkValidParams(Ship ship) {
         Calendar calendar1 = new GregorianCalendar();
         Calendar calendar2 = new GregorianCalendar();
@@ -0,0 +1,146 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.exceptions.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+
+// An ordered list of sort keys, e.g. "RATING:DESC,DATE" for rating descending, then prodDate ascending.
+// id is always the last key, so every order is total and pages never overlap. Unless given explicitly it runs in the
+// direction of the key before it, so "order=RATING&direction=DESC" and "sort=RATING:DESC" are the same order.
+public final class ShipSort {
+
+    public static final ShipSort BY_ID = of(ShipOrder.ID, Sort.Direction.ASC);
+
+    private final List<Key> keys;
+
+    private ShipSort(List<Key> keys) {
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    // The single key form of the order and direction parameters
+    public static ShipSort of(ShipOrder order, Sort.Direction direction) {
+        if (order == null) order = ShipOrder.ID;
+        if (direction == null) direction = Sort.Direction.ASC;
+
+        List<Key> keys = new ArrayList<>();
+        keys.add(new Key(order, direction));
+        return withIdLast(keys);
+    }
+
+    public static ShipSort parse(String value) {
+        List<Key> keys = new ArrayList<>();
+        Set<ShipOrder> fields = EnumSet.noneOf(ShipOrder.class);
+        try {
+            for (String part : value.split(",")) {
+                String[] tokens = part.trim().split(":");
+                if (tokens.length > 2) throw new BadRequestException();
+
+                ShipOrder field = ShipOrder.valueOf(tokens[0].trim().toUpperCase());
+                Sort.Direction direction = tokens.length == 2
+                        ? Sort.Direction.fromString(tokens[1].trim())
+                        : Sort.Direction.ASC;
+                if (!fields.add(field)) throw new BadRequestException();
+                keys.add(new Key(field, direction));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+
+        return withIdLast(keys);
+    }
+
+    private static ShipSort withIdLast(List<Key> keys) {
+        boolean hasId = false;
+        for (Key key : keys) {
+            hasId |= key.field == ShipOrder.ID;
+        }
+        if (!hasId) keys.add(new Key(ShipOrder.ID, keys.get(keys.size() - 1).direction));
+        return new ShipSort(keys);
+    }
+
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    public Key getPrimaryKey() {
+        return keys.get(0);
+    }
+
+    // True when the order is one field followed by id in the same direction, i.e. the order of a (field, id) index
+    public boolean isSingleKey() {
+        Key primary = keys.get(0);
+        if (primary.field == ShipOrder.ID) return true;
+
+        Key second = keys.get(1);
+        return second.field == ShipOrder.ID && second.direction == primary.direction;
+    }
+
+    // Cursors seek forward over a single ascending key; any other order has no seek order
+    public ShipOrder getSeekOrder() {
+        return isSingleKey() && getPrimaryKey().direction == Sort.Direction.ASC ? getPrimaryKey().field : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return keys.equals(((ShipSort) o).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return keys.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Key key : keys) {
+            joiner.add(key.toString());
+        }
+        return joiner.toString();
+    }
+
+    public static final class Key {
+
+        private final ShipOrder field;
+        private final Sort.Direction direction;
+
+        Key(ShipOrder field, Sort.Direction direction) {
+            this.field = field;
+            this.direction = direction;
+        }
+
+        public ShipOrder getField() {
+            return field;
+        }
+
+        public Sort.Direction getDirection() {
+            return direction;
+        }
+
+        public boolean isDescending() {
+            return direction == Sort.Direction.DESC;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return field == key.field && direction == key.direction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, direction);
+        }
+
+        @Override
+        public String toString() {
+            return field.getFieldName() + (isDescending() ? " desc" : "");
+        }
+    }
+}
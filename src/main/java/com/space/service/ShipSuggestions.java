@@ -0,0 +1,62 @@
+package com.space.service;
+
+import com.space.exceptions.BadRequestException;
+import com.space.model.Ship;
+import com.space.model.Suggestion;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Type-ahead over ship names and planets, with the number of ships carrying each value
+@Component
+public class ShipSuggestions {
+
+    static final String NAME = "name";
+    static final String PLANET = "planet";
+
+    private final PrefixTrie names = new PrefixTrie();
+    private final PrefixTrie planets = new PrefixTrie();
+
+    public synchronized void reload(List<Ship> ships) {
+        names.clear();
+        planets.clear();
+        for (Ship ship : ships) {
+            add(ship);
+        }
+    }
+
+    public synchronized void add(Ship ship) {
+        names.add(ship.getName());
+        planets.add(ship.getPlanet());
+    }
+
+    public synchronized void remove(Ship ship) {
+        names.remove(ship.getName());
+        planets.remove(ship.getPlanet());
+    }
+
+    // Without a field both are searched and the most frequent values of either come first
+    public synchronized List<Suggestion> suggest(String field, String prefix, int limit) {
+        if (field != null && !NAME.equals(field) && !PLANET.equals(field)) throw new BadRequestException();
+        if (prefix == null) prefix = "";
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (field == null || NAME.equals(field)) collect(NAME, names.complete(prefix, limit), suggestions);
+        if (field == null || PLANET.equals(field)) collect(PLANET, planets.complete(prefix, limit), suggestions);
+
+        if (field == null) {
+            suggestions.sort(Comparator.comparingInt(Suggestion::getCount).reversed()
+                    .thenComparing(Suggestion::getValue));
+            if (suggestions.size() > limit) suggestions = new ArrayList<>(suggestions.subList(0, limit));
+        }
+        return suggestions;
+    }
+
+    private static void collect(String field, List<PrefixTrie.Completion> completions, List<Suggestion> out) {
+        for (PrefixTrie.Completion completion : completions) {
+            out.add(new Suggestion(field, completion.term, completion.count));
+        }
+    }
+}
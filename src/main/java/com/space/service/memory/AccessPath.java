@@ -0,0 +1,10 @@
+package com.space.service.memory;
+
+enum AccessPath {
+    RANGE_INDEX,
+    BITMAP,
+    TRIGRAM,
+    DICTIONARY,
+    SCAN,
+    RESIDUAL
+}
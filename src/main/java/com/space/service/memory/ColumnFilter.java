@@ -0,0 +1,59 @@
+package com.space.service.memory;
+
+import com.space.service.ShipQuery;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Filter parameters converted once into the primitive bounds the column scans compare against
+final class ColumnFilter {
+
+    final String name;
+    final String planet;
+    final int shipType;
+    final Boolean isUsed;
+    final boolean hasProdDay;
+    final int minProdDay;
+    final int maxProdDay;
+    final boolean hasSpeed;
+    final double minSpeed;
+    final double maxSpeed;
+    final boolean hasCrewSize;
+    final int minCrewSize;
+    final int maxCrewSize;
+    final boolean hasRating;
+    final double minRating;
+    final double maxRating;
+
+    ColumnFilter(ShipQuery query) {
+        this.name = query.getName();
+        this.planet = query.getPlanet();
+        this.shipType = query.getShipType() == null ? -1 : query.getShipType().ordinal();
+        this.isUsed = query.isUsed();
+        this.hasProdDay = query.getAfter() != null || query.getBefore() != null;
+        this.minProdDay = query.getAfter() == null ? Integer.MIN_VALUE : firstDayFrom(query.getAfter());
+        this.maxProdDay = query.getBefore() == null ? Integer.MAX_VALUE : lastDayOfYear(query.getBefore());
+        this.hasSpeed = query.getMinSpeed() != null || query.getMaxSpeed() != null;
+        this.minSpeed = query.getMinSpeed() == null ? Double.NEGATIVE_INFINITY : query.getMinSpeed();
+        this.maxSpeed = query.getMaxSpeed() == null ? Double.POSITIVE_INFINITY : query.getMaxSpeed();
+        this.hasCrewSize = query.getMinCrewSize() != null || query.getMaxCrewSize() != null;
+        this.minCrewSize = query.getMinCrewSize() == null ? Integer.MIN_VALUE : query.getMinCrewSize();
+        this.maxCrewSize = query.getMaxCrewSize() == null ? Integer.MAX_VALUE : query.getMaxCrewSize();
+        this.hasRating = query.getMinRating() != null || query.getMaxRating() != null;
+        this.minRating = query.getMinRating() == null ? Double.NEGATIVE_INFINITY : query.getMinRating();
+        this.maxRating = query.getMaxRating() == null ? Double.POSITIVE_INFINITY : query.getMaxRating();
+    }
+
+    // prodDate >= after holds for a day exactly when the day starts at or after "after"
+    private static int firstDayFrom(long after) {
+        LocalDate day = Instant.ofEpochMilli(after).atZone(ZoneId.systemDefault()).toLocalDate();
+        if (ShipColumns.startOfDay((int) day.toEpochDay()) < after) day = day.plusDays(1);
+        return (int) day.toEpochDay();
+    }
+
+    private static int lastDayOfYear(long before) {
+        int year = Instant.ofEpochMilli(before).atZone(ZoneId.systemDefault()).getYear();
+        return (int) LocalDate.of(year, 12, 31).toEpochDay();
+    }
+}
@@ -0,0 +1,38 @@
+package com.space.service.memory;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+// One active filter together with what the planner needs to know about it: how to fetch its rows through
+// the field's own access path, how to check a single row, and how much either costs
+final class FieldPredicate {
+
+    final String description;
+    final AccessPath accessPath;
+    final long estimatedRows;
+    final long lookupCost;
+    final int checkCost;
+
+    private final Supplier<BitSet> lookup;
+    private final IntPredicate check;
+
+    FieldPredicate(String description, AccessPath accessPath, long estimatedRows, long lookupCost, int checkCost,
+                   Supplier<BitSet> lookup, IntPredicate check) {
+        this.description = description;
+        this.accessPath = accessPath;
+        this.estimatedRows = estimatedRows;
+        this.lookupCost = lookupCost;
+        this.checkCost = checkCost;
+        this.lookup = lookup;
+        this.check = check;
+    }
+
+    BitSet lookup() {
+        return lookup.get();
+    }
+
+    boolean test(int ordinal) {
+        return check.test(ordinal);
+    }
+}
@@ -0,0 +1,569 @@
+package com.space.service.memory;
+
+import com.space.controller.ShipOrder;
+import com.space.model.QueryPlan;
+import com.space.model.Ship;
+import com.space.model.ShipAggregates;
+import com.space.model.ShipType;
+import com.space.service.AggregateBuilder;
+import com.space.service.ShipCursor;
+import com.space.service.ShipQuery;
+import com.space.service.ShipSort;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Profile("memory")
+public class FleetIndex implements DisposableBean {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ParallelExecutor parallel;
+
+    private ShipColumns columns = new ShipColumns(0);
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private RangeIndex speedIndex;
+    private RangeIndex ratingIndex;
+    private RangeIndex crewSizeIndex;
+    private RangeIndex prodDayIndex;
+    private TrigramIndex nameTrigrams;
+    private TrigramIndex planetTrigrams;
+    private int indexedPlanets;
+
+    @Autowired
+    public FleetIndex(Environment environment) {
+        this.parallel = new ParallelExecutor(
+                environment.getProperty("cosmoport.parallel.threads", Integer.class,
+                        Runtime.getRuntime().availableProcessors()),
+                environment.getProperty("cosmoport.parallel.workPerThread", Long.class,
+                        ParallelExecutor.DEFAULT_WORK_PER_THREAD));
+    }
+
+    @Override
+    public void destroy() {
+        parallel.shutdown();
+    }
+
+    public Map<String, Object> getStatistics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("ships", ordinals.size());
+            statistics.put("parallel", parallel.statistics());
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The ships must come in id order
+    public void reload(List<Ship> ships) {
+        lock.writeLock().lock();
+        try {
+            rebuild(ships);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Ship ship) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(ship.getId());
+            if (ordinal == null) {
+                ordinal = columns.append(ship);
+                ordinals.put(ship.getId(), ordinal);
+            } else {
+                unindex(ordinal);
+                columns.set(ordinal, ship);
+            }
+            index(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) return;
+
+            unindex(ordinal);
+            columns.clear(ordinal);
+            if (columns.size > 1024 && ordinals.size() < columns.size / 2) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Ship> find(ShipQuery query, ShipSort sort, ShipCursor after, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(evaluate(query, null), sort, after, offset, limit, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(ShipQuery query) {
+        lock.readLock().lock();
+        try {
+            return evaluate(query, null).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Map<Object, Long>> facets(ShipQuery query) {
+        lock.readLock().lock();
+        try {
+            return facets(evaluate(query, null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ShipAggregates aggregate(ShipQuery query) {
+        lock.readLock().lock();
+        try {
+            ShipColumns c = columns;
+            ShipType[] shipTypes = ShipType.values();
+            AggregateBuilder builder = new AggregateBuilder();
+            BitSet matches = evaluate(query, null);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                builder.add(shipTypes[c.shipType[i]], c.planets.get(c.planet[i]), c.used.get(i),
+                        c.speed[i], c.rating[i], c.crewSize[i]);
+            }
+            return builder.build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Ship> get(List<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<Ship> ships = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) ships.add(columns.ships[ordinal]);
+            }
+            return ships;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public QueryPlan explain(ShipQuery query, ShipSort sort, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            QueryPlan plan = new QueryPlan("memory");
+            page(evaluate(query, plan), sort, null, offset, limit, plan);
+            return plan;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet evaluate(ShipQuery query, QueryPlan plan) {
+        List<QueryPlanner.Step> steps = QueryPlanner.plan(predicates(new ColumnFilter(query)), ordinals.size());
+        if (steps.isEmpty()) {
+            BitSet all = (BitSet) columns.live.clone();
+            if (plan != null) plan.addStage("all ships", AccessPath.SCAN.name(), ordinals.size(), ordinals.size(), 0);
+            return all;
+        }
+
+        BitSet result = null;
+        List<QueryPlanner.Step> residuals = new ArrayList<>();
+        for (QueryPlanner.Step step : steps) {
+            if (step.residual) {
+                residuals.add(step);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            if (result == null) {
+                result = step.predicate.lookup();
+                result.and(columns.live);
+            } else {
+                result.and(step.predicate.lookup());
+            }
+
+            if (plan != null) {
+                plan.addStage(step.predicate.description, step.accessPath().name(), step.estimatedRows,
+                        result.cardinality(), System.nanoTime() - start);
+            }
+        }
+        if (result == null) result = (BitSet) columns.live.clone();
+
+        if (!residuals.isEmpty()) {
+            long start = System.nanoTime();
+            IntPredicate check = fuse(residuals);
+            long checkCost = 0;
+            for (QueryPlanner.Step step : residuals) {
+                checkCost += step.predicate.checkCost;
+            }
+            int parallelism = parallel.parallelism(result.cardinality() * checkCost);
+            result = parallel.filter(result, check, parallelism);
+
+            if (plan != null) {
+                StringJoiner description = new StringJoiner(" and ");
+                for (QueryPlanner.Step step : residuals) {
+                    description.add(step.predicate.description);
+                }
+                plan.addStage(description.toString(), access(AccessPath.RESIDUAL.name(), parallelism),
+                        steps.get(steps.size() - 1).estimatedRows, result.cardinality(), System.nanoTime() - start);
+            }
+        }
+        return result;
+    }
+
+    // All row-by-row checks run in a single pass over the candidates, cheapest and most selective first
+    private static IntPredicate fuse(List<QueryPlanner.Step> residuals) {
+        residuals.sort(Comparator.<QueryPlanner.Step>comparingInt(step -> step.predicate.checkCost)
+                .thenComparingLong(step -> step.predicate.estimatedRows));
+
+        IntPredicate check = residuals.get(0).predicate::test;
+        for (int i = 1; i < residuals.size(); i++) {
+            check = check.and(residuals.get(i).predicate::test);
+        }
+        return check;
+    }
+
+    private List<FieldPredicate> predicates(ColumnFilter filter) {
+        ShipColumns c = columns;
+        long rows = ordinals.size();
+        List<FieldPredicate> predicates = new ArrayList<>();
+
+        if (filter.name != null) {
+            String part = filter.name;
+            int estimate = nameTrigrams.estimate(part);
+            if (estimate < 0) {
+                predicates.add(new FieldPredicate("name contains '" + part + "'", AccessPath.SCAN, rows, rows * 8, 8,
+                        () -> scanName(part, null), i -> c.name[i].contains(part)));
+            } else {
+                predicates.add(new FieldPredicate("name contains '" + part + "'", AccessPath.TRIGRAM, estimate,
+                        estimate * 8L, 8, () -> scanName(part, nameTrigrams.candidates(part)),
+                        i -> c.name[i].contains(part)));
+            }
+        }
+        if (filter.planet != null) {
+            boolean[] matching = matchingPlanets(filter.planet);
+            long estimate = 0;
+            for (int code = 0; code < matching.length; code++) {
+                if (matching[code]) estimate += c.planetShips[code];
+            }
+            predicates.add(new FieldPredicate("planet contains '" + filter.planet + "'", AccessPath.DICTIONARY,
+                    estimate, rows, 1, () -> scanPlanet(matching), i -> matching[c.planet[i]]));
+        }
+        if (filter.shipType >= 0) {
+            BitSet bitmap = c.byShipType[filter.shipType];
+            byte shipType = (byte) filter.shipType;
+            predicates.add(new FieldPredicate("shipType = " + ShipType.values()[shipType], AccessPath.BITMAP,
+                    bitmap.cardinality(), rows / 64, 1, () -> (BitSet) bitmap.clone(),
+                    i -> c.shipType[i] == shipType));
+        }
+        if (filter.isUsed != null) {
+            BitSet bitmap = filter.isUsed ? c.used : c.unused;
+            predicates.add(new FieldPredicate("isUsed = " + filter.isUsed, AccessPath.BITMAP,
+                    bitmap.cardinality(), rows / 64, 1, () -> (BitSet) bitmap.clone(), bitmap::get));
+        }
+        if (filter.hasProdDay) {
+            int min = filter.minProdDay;
+            int max = filter.maxProdDay;
+            predicates.add(range("prodDate in [" + describeDay(min) + ", " + describeDay(max) + "]",
+                    prodDayIndex, min, max, i -> c.prodDay[i] >= min && c.prodDay[i] <= max));
+        }
+        if (filter.hasSpeed) {
+            double min = filter.minSpeed;
+            double max = filter.maxSpeed;
+            predicates.add(range("speed in [" + min + ", " + max + "]", speedIndex,
+                    RangeIndex.sortable(min), RangeIndex.sortable(max), i -> c.speed[i] >= min && c.speed[i] <= max));
+        }
+        if (filter.hasCrewSize) {
+            int min = filter.minCrewSize;
+            int max = filter.maxCrewSize;
+            predicates.add(range("crewSize in [" + min + ", " + max + "]", crewSizeIndex, min, max,
+                    i -> c.crewSize[i] >= min && c.crewSize[i] <= max));
+        }
+        if (filter.hasRating) {
+            double min = filter.minRating;
+            double max = filter.maxRating;
+            predicates.add(range("rating in [" + min + ", " + max + "]", ratingIndex,
+                    RangeIndex.sortable(min), RangeIndex.sortable(max), i -> c.rating[i] >= min && c.rating[i] <= max));
+        }
+
+        return predicates;
+    }
+
+    // The sorted index gives the exact number of rows in a range with two binary searches
+    private static FieldPredicate range(String description, RangeIndex index, long min, long max, IntPredicate check) {
+        long rows = Math.max(index.upperBound(max) - index.lowerBound(min), 0);
+        return new FieldPredicate(description, AccessPath.RANGE_INDEX, rows, rows, 1,
+                () -> index.range(min, max), check);
+    }
+
+    private static String describeDay(int epochDay) {
+        if (epochDay == Integer.MIN_VALUE || epochDay == Integer.MAX_VALUE) return "*";
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    private BitSet scanName(String part, BitSet candidates) {
+        BitSet result = new BitSet(columns.size);
+        if (candidates == null) {
+            for (int i = 0; i < columns.size; i++) {
+                if (columns.name[i] != null && columns.name[i].contains(part)) result.set(i);
+            }
+        } else {
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (columns.name[i] != null && columns.name[i].contains(part)) result.set(i);
+            }
+        }
+        return result;
+    }
+
+    // Planets are dictionary encoded, so the substring test runs once per distinct planet rather than per ship
+    private boolean[] matchingPlanets(String part) {
+        BitSet candidates = planetTrigrams.candidates(part);
+        boolean[] matching = new boolean[columns.planets.size()];
+        for (int code = 0; code < matching.length; code++) {
+            matching[code] = (candidates == null || candidates.get(code)) && columns.planets.get(code).contains(part);
+        }
+        return matching;
+    }
+
+    private BitSet scanPlanet(boolean[] matching) {
+        BitSet result = new BitSet(columns.size);
+        for (int i = 0; i < columns.size; i++) {
+            if (matching[columns.planet[i]]) result.set(i);
+        }
+        return result;
+    }
+
+    private void seek(BitSet matches, ShipCursor cursor) {
+        long lastId = cursor.getId();
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            int compared = compareKey(cursor, i);
+            if (compared < 0 || compared == 0 && columns.id[i] <= lastId) matches.clear(i);
+        }
+    }
+
+    private int compareKey(ShipCursor cursor, int ordinal) {
+        switch (cursor.getOrder()) {
+            case SPEED:
+                return Double.compare(columns.speed[ordinal], (Double) cursor.getKey());
+            case DATE:
+                return Integer.compare(columns.prodDay[ordinal], ShipColumns.toEpochDay((Date) cursor.getKey()));
+            case RATING:
+                return Double.compare(columns.rating[ordinal], (Double) cursor.getKey());
+            default:
+                return Long.compare(columns.id[ordinal], cursor.getId());
+        }
+    }
+
+    private List<Ship> page(BitSet matches, ShipSort sort, ShipCursor after, int offset, int limit,
+                            QueryPlan plan) {
+        long start = System.nanoTime();
+        String operation = "order by " + sort + " limit " + limit;
+        // A (field, id) index only serves orders that are that field followed by id in the same direction
+        RangeIndex index = sort.isSingleKey() ? orderIndex(sort.getPrimaryKey().getField()) : null;
+        if (index != null) {
+            // Walking the index visits about (offset + limit) / selectivity entries, sorting costs m log m
+            double matchCount = Math.max(matches.cardinality(), 1);
+            double walkCost = ((double) offset + limit) * index.size() / matchCount;
+            double sortCost = matchCount * (Math.log(matchCount) / Math.log(2) + 1);
+            if (walkCost <= sortCost) {
+                List<Ship> result;
+                if (sort.getPrimaryKey().isDescending()) {
+                    result = walkBackward(index, matches, offset, limit);
+                } else {
+                    int from = after == null ? 0 : index.positionAfter(orderKey(after), after.getId());
+                    result = walk(index, from, matches, offset, limit);
+                }
+                if (plan != null) {
+                    plan.addStage(operation, "INDEX_WALK", limit, result.size(), System.nanoTime() - start);
+                }
+                return result;
+            }
+        }
+
+        if (after != null) seek(matches, after);
+        int matchCount = matches.cardinality();
+        int count = (int) Math.min((long) offset + limit, matchCount);
+        // Each match is offered to a heap of offset + limit entries, m log k instead of sorting all m
+        int parallelism = parallel.parallelism((long) (matchCount * (Math.log(count + 1) / Math.log(2) + 1)));
+        int[] sorted = parallel.sortedPrefix(matches, comparator(sort), count, parallelism);
+
+        List<Ship> result = new ArrayList<>();
+        for (int i = offset; i < sorted.length && result.size() < limit; i++) {
+            result.add(columns.ships[sorted[i]]);
+        }
+        if (plan != null) {
+            plan.addStage(operation, access("TOP_K", parallelism), limit, result.size(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static String access(String access, int parallelism) {
+        return parallelism > 1 ? access + " x" + parallelism : access;
+    }
+
+    private List<Ship> walk(RangeIndex index, int start, BitSet matches, int offset, int limit) {
+        List<Ship> result = new ArrayList<>();
+        int skipped = 0;
+        for (int position = start; position < index.size() && result.size() < limit; position++) {
+            int ordinal = index.ordinalAt(position);
+            if (!matches.get(ordinal)) continue;
+            if (skipped < offset) skipped++;
+            else result.add(columns.ships[ordinal]);
+        }
+        return result;
+    }
+
+    private List<Ship> walkBackward(RangeIndex index, BitSet matches, int offset, int limit) {
+        List<Ship> result = new ArrayList<>();
+        int skipped = 0;
+        for (int position = index.size() - 1; position >= 0 && result.size() < limit; position--) {
+            int ordinal = index.ordinalAt(position);
+            if (!matches.get(ordinal)) continue;
+            if (skipped < offset) skipped++;
+            else result.add(columns.ships[ordinal]);
+        }
+        return result;
+    }
+
+    private RangeIndex orderIndex(ShipOrder order) {
+        switch (order) {
+            case SPEED:
+                return speedIndex;
+            case DATE:
+                return prodDayIndex;
+            case RATING:
+                return ratingIndex;
+            default:
+                return null;
+        }
+    }
+
+    private long orderKey(ShipCursor cursor) {
+        switch (cursor.getOrder()) {
+            case SPEED:
+            case RATING:
+                return RangeIndex.sortable((Double) cursor.getKey());
+            case DATE:
+                return ShipColumns.toEpochDay((Date) cursor.getKey());
+            default:
+                return cursor.getId();
+        }
+    }
+
+    private OrdinalComparator comparator(ShipSort sort) {
+        OrdinalComparator result = null;
+        for (ShipSort.Key key : sort.getKeys()) {
+            OrdinalComparator next = comparator(key.getField());
+            if (key.isDescending()) next = next.reversed();
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+
+    private OrdinalComparator comparator(ShipOrder field) {
+        ShipColumns c = columns;
+        switch (field) {
+            case SPEED:
+                return (a, b) -> Double.compare(c.speed[a], c.speed[b]);
+            case DATE:
+                return (a, b) -> Integer.compare(c.prodDay[a], c.prodDay[b]);
+            case RATING:
+                return (a, b) -> Double.compare(c.rating[a], c.rating[b]);
+            default:
+                return (a, b) -> Long.compare(c.id[a], c.id[b]);
+        }
+    }
+
+    private Map<String, Map<Object, Long>> facets(BitSet matches) {
+        Map<Object, Long> shipTypes = new LinkedHashMap<>();
+        for (ShipType type : ShipType.values()) {
+            long count = intersectionSize(matches, columns.byShipType[type.ordinal()]);
+            if (count > 0) shipTypes.put(type, count);
+        }
+
+        Map<Object, Long> isUsed = new LinkedHashMap<>();
+        long unused = intersectionSize(matches, columns.unused);
+        long used = intersectionSize(matches, columns.used);
+        if (unused > 0) isUsed.put(false, unused);
+        if (used > 0) isUsed.put(true, used);
+
+        Map<String, Map<Object, Long>> facets = new LinkedHashMap<>();
+        facets.put("shipType", shipTypes);
+        facets.put("isUsed", isUsed);
+        return facets;
+    }
+
+    private static long intersectionSize(BitSet left, BitSet right) {
+        BitSet intersection = (BitSet) left.clone();
+        intersection.and(right);
+        return intersection.cardinality();
+    }
+
+    private void index(int ordinal) {
+        speedIndex.insert(ordinal);
+        ratingIndex.insert(ordinal);
+        crewSizeIndex.insert(ordinal);
+        prodDayIndex.insert(ordinal);
+        nameTrigrams.add(ordinal, columns.name[ordinal]);
+
+        while (indexedPlanets < columns.planets.size()) {
+            planetTrigrams.add(indexedPlanets, columns.planets.get(indexedPlanets));
+            indexedPlanets++;
+        }
+    }
+
+    private void unindex(int ordinal) {
+        speedIndex.remove(ordinal);
+        ratingIndex.remove(ordinal);
+        crewSizeIndex.remove(ordinal);
+        prodDayIndex.remove(ordinal);
+        nameTrigrams.remove(ordinal, columns.name[ordinal]);
+    }
+
+    private void compact() {
+        List<Ship> ships = new ArrayList<>(ordinals.size());
+        for (int i = columns.live.nextSetBit(0); i >= 0; i = columns.live.nextSetBit(i + 1)) {
+            ships.add(columns.ships[i]);
+        }
+        rebuild(ships);
+    }
+
+    private void rebuild(List<Ship> ships) {
+        ShipColumns rebuilt = new ShipColumns(ships.size());
+        ordinals.clear();
+        for (Ship ship : ships) {
+            ordinals.put(ship.getId(), rebuilt.append(ship));
+        }
+        columns = rebuilt;
+
+        speedIndex = new RangeIndex(rebuilt, ordinal -> RangeIndex.sortable(rebuilt.speed[ordinal]));
+        ratingIndex = new RangeIndex(rebuilt, ordinal -> RangeIndex.sortable(rebuilt.rating[ordinal]));
+        crewSizeIndex = new RangeIndex(rebuilt, ordinal -> rebuilt.crewSize[ordinal]);
+        prodDayIndex = new RangeIndex(rebuilt, ordinal -> rebuilt.prodDay[ordinal]);
+
+        nameTrigrams = new TrigramIndex();
+        for (int i = rebuilt.live.nextSetBit(0); i >= 0; i = rebuilt.live.nextSetBit(i + 1)) {
+            nameTrigrams.add(i, rebuilt.name[i]);
+        }
+        planetTrigrams = new TrigramIndex();
+        for (indexedPlanets = 0; indexedPlanets < rebuilt.planets.size(); indexedPlanets++) {
+            planetTrigrams.add(indexedPlanets, rebuilt.planets.get(indexedPlanets));
+        }
+    }
+}
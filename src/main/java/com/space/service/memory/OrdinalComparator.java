@@ -0,0 +1,19 @@
+package com.space.service.memory;
+
+// Compares two ships by ordinal straight from the columns, without boxing
+@FunctionalInterface
+interface OrdinalComparator {
+
+    int compare(int a, int b);
+
+    default OrdinalComparator reversed() {
+        return (a, b) -> compare(b, a);
+    }
+
+    default OrdinalComparator thenComparing(OrdinalComparator next) {
+        return (a, b) -> {
+            int compared = compare(a, b);
+            return compared != 0 ? compared : next.compare(a, b);
+        };
+    }
+}
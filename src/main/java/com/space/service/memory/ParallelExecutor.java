@@ -0,0 +1,186 @@
+package com.space.service.memory;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// Runs row-by-row filtering and sorting over chunks of the ordinal space on a pool of its own, so large
+// in-memory queries never compete with request threads for the common pool. Below the work threshold
+// everything stays on the calling thread.
+final class ParallelExecutor {
+
+    static final long DEFAULT_WORK_PER_THREAD = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final long workPerThread;
+    private final LongAdder sequentialPasses = new LongAdder();
+    private final LongAdder parallelPasses = new LongAdder();
+    private final AtomicInteger lastParallelism = new AtomicInteger(1);
+    private final AtomicInteger maxParallelism = new AtomicInteger(1);
+
+    ParallelExecutor(int threads) {
+        this(threads, DEFAULT_WORK_PER_THREAD);
+    }
+
+    ParallelExecutor(int threads, long workPerThread) {
+        this.pool = new ForkJoinPool(Math.max(threads, 1));
+        this.workPerThread = Math.max(workPerThread, 1);
+    }
+
+    int parallelism(long work) {
+        int parallelism = (int) Math.max(1, Math.min(pool.getParallelism(), work / workPerThread));
+        if (parallelism > 1) parallelPasses.increment();
+        else sequentialPasses.increment();
+        lastParallelism.set(parallelism);
+        maxParallelism.accumulateAndGet(parallelism, Math::max);
+        return parallelism;
+    }
+
+    // Clears every candidate bit the check rejects
+    BitSet filter(BitSet candidates, IntPredicate check, int parallelism) {
+        long[] words = candidates.toLongArray();
+        if (parallelism <= 1) {
+            filterWords(words, 0, words.length, check);
+        } else {
+            pool.invoke(new FilterTask(words, 0, words.length, grain(words.length, parallelism), check));
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // The first "count" matching ordinals in comparator order; each chunk selects its own top "count" and the
+    // chunk results are merged
+    int[] sortedPrefix(BitSet matches, OrdinalComparator comparator, int count, int parallelism) {
+        long[] words = matches.toLongArray();
+        if (parallelism <= 1) return sortWords(words, 0, words.length, comparator, count);
+
+        return pool.invoke(new SortTask(words, 0, words.length, grain(words.length, parallelism), comparator, count));
+    }
+
+    Map<String, Object> statistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("poolParallelism", pool.getParallelism());
+        statistics.put("sequentialPasses", sequentialPasses.sum());
+        statistics.put("parallelPasses", parallelPasses.sum());
+        statistics.put("lastParallelism", lastParallelism.get());
+        statistics.put("maxParallelism", maxParallelism.get());
+        statistics.put("activeThreads", pool.getActiveThreadCount());
+        statistics.put("stolenTasks", pool.getStealCount());
+        return statistics;
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // Several chunks per thread so that work stealing can even out uneven chunks
+    private static int grain(int words, int parallelism) {
+        return Math.max(1, (words + parallelism * 4 - 1) / (parallelism * 4));
+    }
+
+    private static void filterWords(long[] words, int from, int to, IntPredicate check) {
+        for (int w = from; w < to; w++) {
+            long word = words[w];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                if (!check.test(w * 64 + bit)) words[w] &= ~(1L << bit);
+                word &= word - 1;
+            }
+        }
+    }
+
+    private static int[] sortWords(long[] words, int from, int to, OrdinalComparator comparator, int count) {
+        // A chunk can never contribute more than its own matches, however deep the requested page goes
+        int matches = 0;
+        for (int w = from; w < to; w++) {
+            matches += Long.bitCount(words[w]);
+        }
+        TopK topK = new TopK(comparator, Math.min(count, matches));
+        for (int w = from; w < to; w++) {
+            long word = words[w];
+            while (word != 0) {
+                topK.accept(w * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return topK.sorted();
+    }
+
+    private static int[] merge(int[] left, int[] right, OrdinalComparator comparator, int count) {
+        int[] result = new int[Math.min(count, left.length + right.length)];
+        int l = 0;
+        int r = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (r == right.length || l < left.length && comparator.compare(left[l], right[r]) <= 0) {
+                result[i] = left[l++];
+            } else {
+                result[i] = right[r++];
+            }
+        }
+        return result;
+    }
+
+    private static final class FilterTask extends RecursiveAction {
+
+        private final long[] words;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntPredicate check;
+
+        FilterTask(long[] words, int from, int to, int grain, IntPredicate check) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.check = check;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                filterWords(words, from, to, check);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FilterTask(words, from, middle, grain, check),
+                    new FilterTask(words, middle, to, grain, check));
+        }
+    }
+
+    private static final class SortTask extends RecursiveTask<int[]> {
+
+        private final long[] words;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final OrdinalComparator comparator;
+        private final int count;
+
+        SortTask(long[] words, int from, int to, int grain, OrdinalComparator comparator, int count) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.comparator = comparator;
+            this.count = count;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= grain) return sortWords(words, from, to, comparator, count);
+
+            int middle = (from + to) >>> 1;
+            SortTask left = new SortTask(words, from, middle, grain, comparator, count);
+            SortTask right = new SortTask(words, middle, to, grain, comparator, count);
+            left.fork();
+            int[] rightResult = right.compute();
+            return merge(left.join(), rightResult, comparator, count);
+        }
+    }
+}
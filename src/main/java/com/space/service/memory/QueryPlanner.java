@@ -0,0 +1,56 @@
+package com.space.service.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Orders the predicates by estimated selectivity. The most selective one drives the query through its access
+// path; every following predicate is either intersected through its own index or checked row by row on the
+// surviving candidates, whichever is estimated to be cheaper. Row-by-row checks are executed together in one
+// fused pass after all index intersections.
+final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    static List<Step> plan(List<FieldPredicate> predicates, long rows) {
+        List<FieldPredicate> ordered = new ArrayList<>(predicates);
+        ordered.sort(Comparator.comparingLong(predicate -> predicate.estimatedRows));
+
+        List<Step> steps = new ArrayList<>(ordered.size());
+        double candidates = rows;
+        for (FieldPredicate predicate : ordered) {
+            boolean residual;
+            if (steps.isEmpty()) {
+                // A predicate without an index is better folded into the single residual pass than scanned alone
+                residual = predicate.accessPath == AccessPath.SCAN;
+                candidates = predicate.estimatedRows;
+            } else {
+                double intersectCost = predicate.lookupCost + rows / 64.0;
+                double residualCost = candidates * predicate.checkCost;
+                residual = residualCost < intersectCost;
+                // Predicates are assumed independent
+                candidates = candidates * predicate.estimatedRows / Math.max(rows, 1);
+            }
+            steps.add(new Step(predicate, residual, Math.round(candidates)));
+        }
+        return steps;
+    }
+
+    static final class Step {
+
+        final FieldPredicate predicate;
+        final boolean residual;
+        final long estimatedRows;
+
+        Step(FieldPredicate predicate, boolean residual, long estimatedRows) {
+            this.predicate = predicate;
+            this.residual = residual;
+            this.estimatedRows = estimatedRows;
+        }
+
+        AccessPath accessPath() {
+            return residual ? AccessPath.RESIDUAL : predicate.accessPath;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.space.service.memory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntToLongFunction;
+
+// Ordinals sorted by (key, id), kept in two parallel primitive arrays. Keys are column values mapped to longs
+// whose natural order matches the column order, so range lookups are two binary searches.
+final class RangeIndex {
+
+    private final ShipColumns columns;
+    private final IntToLongFunction keyOf;
+
+    private long[] keys;
+    private int[] ordinals;
+    private int size;
+
+    RangeIndex(ShipColumns columns, IntToLongFunction keyOf) {
+        this.columns = columns;
+        this.keyOf = keyOf;
+
+        Integer[] sorted = columns.live.stream().boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, (a, b) -> {
+            int compared = Long.compare(keyOf.applyAsLong(a), keyOf.applyAsLong(b));
+            return compared != 0 ? compared : Long.compare(columns.id[a], columns.id[b]);
+        });
+
+        size = sorted.length;
+        keys = new long[Math.max(size, 16)];
+        ordinals = new int[keys.length];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = sorted[i];
+            keys[i] = keyOf.applyAsLong(sorted[i]);
+        }
+    }
+
+    static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    // Must be called after the columns hold the ship's new values
+    void insert(int ordinal) {
+        long key = keyOf.applyAsLong(ordinal);
+        int position = positionAfter(key, columns.id[ordinal]);
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size + (size >> 1));
+            ordinals = Arrays.copyOf(ordinals, keys.length);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        keys[position] = key;
+        ordinals[position] = ordinal;
+        size++;
+    }
+
+    // Must be called while the columns still hold the values the ship was indexed with
+    void remove(int ordinal) {
+        int position = positionAfter(keyOf.applyAsLong(ordinal), columns.id[ordinal] - 1);
+        if (position == size || ordinals[position] != ordinal) return;
+
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+        size--;
+    }
+
+    BitSet range(long min, long max) {
+        BitSet result = new BitSet(columns.size);
+        for (int i = lowerBound(min), to = upperBound(max); i < to; i++) {
+            result.set(ordinals[i]);
+        }
+        return result;
+    }
+
+    int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    int upperBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // First position whose (key, id) is strictly greater than the given pair
+    int positionAfter(long key, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key || keys[middle] == key && columns.id[ordinals[middle]] <= id) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    int ordinalAt(int position) {
+        return ordinals[position];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,138 @@
+package com.space.service.memory;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+// Struct-of-arrays copy of the fleet. Every ship gets a dense ordinal; deleted ships leave a hole in "live".
+final class ShipColumns {
+
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    int size;
+    long[] id;
+    String[] name;
+    int[] planet;
+    byte[] shipType;
+    int[] prodDay;
+    double[] speed;
+    int[] crewSize;
+    double[] rating;
+    Ship[] ships;
+    final BitSet used = new BitSet();
+    final BitSet unused = new BitSet();
+    final BitSet live = new BitSet();
+    final BitSet[] byShipType = new BitSet[SHIP_TYPES.length];
+
+    final List<String> planets = new ArrayList<>();
+    int[] planetShips = new int[16];
+    private final Map<String, Integer> planetCodes = new HashMap<>();
+
+    ShipColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        id = new long[capacity];
+        name = new String[capacity];
+        planet = new int[capacity];
+        shipType = new byte[capacity];
+        prodDay = new int[capacity];
+        speed = new double[capacity];
+        crewSize = new int[capacity];
+        rating = new double[capacity];
+        ships = new Ship[capacity];
+        for (int i = 0; i < byShipType.length; i++) {
+            byShipType[i] = new BitSet();
+        }
+    }
+
+    int append(Ship ship) {
+        if (size == id.length) grow();
+        int ordinal = size++;
+        set(ordinal, ship);
+        return ordinal;
+    }
+
+    void set(int ordinal, Ship ship) {
+        int day = toEpochDay(ship.getProdDate());
+        if (live.get(ordinal)) planetShips[planet[ordinal]]--;
+
+        id[ordinal] = ship.getId();
+        name[ordinal] = ship.getName();
+        planet[ordinal] = planetCode(ship.getPlanet());
+        planetShips[planet[ordinal]]++;
+        shipType[ordinal] = (byte) ship.getShipType().ordinal();
+        prodDay[ordinal] = day;
+        speed[ordinal] = ship.getSpeed();
+        crewSize[ordinal] = ship.getCrewSize();
+        rating[ordinal] = ship.getRating();
+        used.set(ordinal, ship.isUsed());
+        unused.set(ordinal, !ship.isUsed());
+        for (int i = 0; i < byShipType.length; i++) {
+            byShipType[i].set(ordinal, i == shipType[ordinal]);
+        }
+        live.set(ordinal);
+        ships[ordinal] = copyOf(ship, day);
+    }
+
+    void clear(int ordinal) {
+        planetShips[planet[ordinal]]--;
+        live.clear(ordinal);
+        used.clear(ordinal);
+        unused.clear(ordinal);
+        for (BitSet bitmap : byShipType) {
+            bitmap.clear(ordinal);
+        }
+        name[ordinal] = null;
+        ships[ordinal] = null;
+    }
+
+    static int toEpochDay(Date date) {
+        return (int) Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    static long startOfDay(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private int planetCode(String planetName) {
+        Integer code = planetCodes.get(planetName);
+        if (code == null) {
+            code = planets.size();
+            planets.add(planetName);
+            if (code == planetShips.length) planetShips = Arrays.copyOf(planetShips, code * 2);
+            planetCodes.put(planetName, code);
+        }
+        return code;
+    }
+
+    private void grow() {
+        int capacity = id.length + (id.length >> 1);
+        id = Arrays.copyOf(id, capacity);
+        name = Arrays.copyOf(name, capacity);
+        planet = Arrays.copyOf(planet, capacity);
+        shipType = Arrays.copyOf(shipType, capacity);
+        prodDay = Arrays.copyOf(prodDay, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        crewSize = Arrays.copyOf(crewSize, capacity);
+        rating = Arrays.copyOf(rating, capacity);
+        ships = Arrays.copyOf(ships, capacity);
+    }
+
+    // The table stores prodDate as DATE, so the cached copy is truncated the same way the database would
+    private static Ship copyOf(Ship ship, int epochDay) {
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(new Date(startOfDay(epochDay)));
+        copy.setUsed(ship.isUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        return copy;
+    }
+}
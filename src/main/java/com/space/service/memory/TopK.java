@@ -0,0 +1,68 @@
+package com.space.service.memory;
+
+import java.util.function.IntConsumer;
+
+// Keeps the k smallest ordinals seen so far in a max-heap, so picking a page out of m matches costs m log k
+// and allocates a single int[k]
+final class TopK implements IntConsumer {
+
+    private final OrdinalComparator comparator;
+    private final int[] heap;
+    private int size;
+
+    TopK(OrdinalComparator comparator, int k) {
+        this.comparator = comparator;
+        this.heap = new int[k];
+    }
+
+    @Override
+    public void accept(int ordinal) {
+        if (size < heap.length) {
+            heap[size] = ordinal;
+            siftUp(size++);
+        } else if (size > 0 && comparator.compare(ordinal, heap[0]) < 0) {
+            heap[0] = ordinal;
+            siftDown(0, size);
+        }
+    }
+
+    // Drains the heap; the result is in comparator order
+    int[] sorted() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        int[] result = new int[size];
+        System.arraycopy(heap, 0, result, 0, size);
+        size = 0;
+        return result;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (comparator.compare(heap[position], heap[parent]) <= 0) return;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position, int end) {
+        while (true) {
+            int largest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < end && comparator.compare(heap[left], heap[largest]) > 0) largest = left;
+            if (right < end && comparator.compare(heap[right], heap[largest]) > 0) largest = right;
+            if (largest == position) return;
+            swap(position, largest);
+            position = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
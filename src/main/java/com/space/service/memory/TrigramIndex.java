@@ -0,0 +1,103 @@
+package com.space.service.memory;
+
+import java.util.*;
+
+// Inverted index from every 3-character substring to the sorted keys of the texts containing it.
+// A substring query of length >= 3 can only match texts present in all of its trigram posting lists.
+final class TrigramIndex {
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void add(int key, String text) {
+        for (long trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, t -> new Postings()).add(key);
+        }
+    }
+
+    void remove(int key, String text) {
+        for (long trigram : trigrams(text)) {
+            Postings list = postings.get(trigram);
+            if (list == null) continue;
+            list.remove(key);
+            if (list.size == 0) postings.remove(trigram);
+        }
+    }
+
+    // Upper bound for the number of keys containing the part, or -1 if the part is too short to use the index
+    int estimate(String part) {
+        Set<Long> grams = trigrams(part);
+        if (grams.isEmpty()) return -1;
+
+        int smallest = Integer.MAX_VALUE;
+        for (long trigram : grams) {
+            Postings list = postings.get(trigram);
+            smallest = Math.min(smallest, list == null ? 0 : list.size);
+        }
+        return smallest;
+    }
+
+    // Keys that may contain the part, or null if the part is too short to use the index
+    BitSet candidates(String part) {
+        Set<Long> grams = trigrams(part);
+        if (grams.isEmpty()) return null;
+
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (long trigram : grams) {
+            Postings list = postings.get(trigram);
+            if (list == null) return new BitSet();
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        BitSet result = new BitSet();
+        Postings smallest = lists.get(0);
+        candidates:
+        for (int i = 0; i < smallest.size; i++) {
+            int key = smallest.keys[i];
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(key)) continue candidates;
+            }
+            result.set(key);
+        }
+        return result;
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> result = new HashSet<>();
+        if (text == null) return result;
+
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    private static final class Postings {
+
+        private int[] keys = new int[4];
+        private int size;
+
+        void add(int key) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            if (position >= 0) return;
+
+            position = -position - 1;
+            if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            keys[position] = key;
+            size++;
+        }
+
+        void remove(int key) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            if (position < 0) return;
+
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            size--;
+        }
+
+        boolean contains(int key) {
+            return Arrays.binarySearch(keys, 0, size, key) >= 0;
+        }
+    }
+}
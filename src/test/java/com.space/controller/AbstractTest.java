@@ -3,6 +3,8 @@ package com.space.controller;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.service.ShipServiceImpl;
+import com.space.service.ShipServiceReset;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,14 +27,22 @@ public abstract class AbstractTest {
 
     WebApplicationContext context;
     MockMvc mockMvc;
+    ShipServiceImpl shipService;
 
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
     }
 
+    @Autowired
+    public void setShipService(ShipServiceImpl shipService) {
+        this.shipService = shipService;
+    }
+
     @Before
     public void setup() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        // test.sql recreates the table before every test, so everything derived from it has to follow
+        ShipServiceReset.refresh(shipService);
     }
 }
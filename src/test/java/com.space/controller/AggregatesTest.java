@@ -0,0 +1,94 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AggregatesTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getAggregatesWithoutFilter() throws Exception {
+        assertAggregates(testsHelper.getAllShips(), aggregates(""));
+    }
+
+    //test2
+    @Test
+    public void getAggregatesWithFilter() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByMinSpeed(0.5,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()));
+
+        assertAggregates(expected, aggregates("shipType=MILITARY&minSpeed=0.5"));
+    }
+
+    //test3
+    @Test
+    public void getAggregatesFollowsCreateUpdateAndDelete() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        JsonNode afterCreate = aggregates("");
+        assertEquals("Созданный корабль не учитывается в агрегатах.", 41, afterCreate.get("count").asLong());
+
+        mockMvc.perform(post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Pluto\",\"crewSize\":9999}"))
+                .andExpect(status().isOk());
+        JsonNode afterUpdate = aggregates("");
+        assertEquals("Обновленный корабль не учитывается в агрегатах.", 1, afterUpdate.get("planet").get("Pluto").asLong());
+        assertEquals("Неверный максимальный размер экипажа.", 9999, afterUpdate.get("crewSize").get("max").asInt());
+
+        mockMvc.perform(delete("/rest/ships/41"))
+                .andExpect(status().isOk());
+        assertAggregates(testsHelper.getAllShips(), aggregates(""));
+    }
+
+    private JsonNode aggregates(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/aggregates?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private void assertAggregates(List<ShipInfoTest> ships, JsonNode actual) {
+        assertEquals("Неверное количество кораблей в агрегатах.", ships.size(), actual.get("count").asLong());
+
+        for (ShipType type : ShipType.values()) {
+            long count = ships.stream().filter(ship -> ship.shipType == type).count();
+            JsonNode node = actual.get("shipType").get(type.name());
+            assertEquals("Неверное количество кораблей типа " + type + ".", count, node == null ? 0 : node.asLong());
+        }
+        for (ShipInfoTest ship : ships) {
+            long count = ships.stream().filter(other -> other.planet.equals(ship.planet)).count();
+            assertEquals("Неверное количество кораблей с планеты " + ship.planet + ".",
+                    count, actual.get("planet").get(ship.planet).asLong());
+        }
+        long used = ships.stream().filter(ship -> ship.isUsed).count();
+        assertEquals("Неверное количество использованных кораблей.", used,
+                actual.get("isUsed").has("true") ? actual.get("isUsed").get("true").asLong() : 0);
+
+        double maxSpeed = ships.stream().mapToDouble(ship -> ship.speed).max().orElse(0);
+        double minRating = ships.stream().mapToDouble(ship -> ship.rating).min().orElse(0);
+        double avgCrewSize = ships.stream().mapToInt(ship -> ship.crewSize).average().orElse(0);
+        assertEquals("Неверная максимальная скорость.", maxSpeed, actual.get("speed").get("max").asDouble(), 1e-9);
+        assertEquals("Неверный минимальный рейтинг.", minRating, actual.get("rating").get("min").asDouble(), 1e-9);
+        assertEquals("Неверный средний размер экипажа.", avgCrewSize, actual.get("crewSize").get("avg").asDouble(), 1e-6);
+    }
+}
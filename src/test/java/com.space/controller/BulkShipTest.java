@@ -0,0 +1,133 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void bulkUpdatePlanetTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getShipInfosByPlanet("Jupiter", testsHelper.getAllShips()));
+
+        String updated = mockMvc.perform(post("/rest/ships/bulk?shipType=MILITARY&planet=Jupiter")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Pluto\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное количество обновленных кораблей.", String.valueOf(expected.size()), updated);
+        assertEquals("Корабли не перемещены на новую планету.", String.valueOf(expected.size()), count("planet=Pluto"));
+    }
+
+    //test2
+    @Test
+    public void bulkUpdateRecomputesRatingTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByMaxSpeed(0.3,
+                testsHelper.getShipInfosByIsUsed(true, testsHelper.getAllShips()));
+
+        mockMvc.perform(post("/rest/ships/bulk?isUsed=true&maxSpeed=0.3")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isOk());
+
+        for (ShipInfoTest ship : expected) {
+            String content = mockMvc.perform(get("/rest/ships/" + ship.id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ShipInfoTest actual = mapper.readValue(content, ShipInfoTest.class);
+
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(ship.prodDate);
+            double rating = Math.round(80 * 0.5 * 0.5 / (3019 - calendar.get(Calendar.YEAR) + 1) * 100) / 100.0;
+            assertEquals("Неверная скорость после массового обновления.", 0.5, actual.speed, 1e-9);
+            assertEquals("Рейтинг не пересчитан после массового обновления.", rating, actual.rating, 1e-9);
+        }
+
+        mockMvc.perform(post("/rest/ships/bulk?isUsed=true")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":1.5}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/ships/bulk?isUsed=true")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void bulkDeleteTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByShipType(ShipType.MERCHANT,
+                testsHelper.getShipInfosByPlanet("Saturn", testsHelper.getAllShips()));
+
+        String deleted = mockMvc.perform(delete("/rest/ships/bulk?shipType=MERCHANT&planet=Saturn"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное количество удаленных кораблей.", String.valueOf(expected.size()), deleted);
+        assertEquals("Корабли не удалены.", "0", count("shipType=MERCHANT&planet=Saturn"));
+        assertEquals("Удалены лишние корабли.", String.valueOf(40 - expected.size()), count(""));
+
+        mockMvc.perform(delete("/rest/ships/bulk"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void bulkChangesReachLeaderboardTest() throws Exception {
+        List<ShipInfoTest> changed = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getShipInfosByPlanet("Jupiter", testsHelper.getAllShips()));
+        ShipInfoTest other = testsHelper.getAllShips().stream()
+                .filter(ship -> !changed.contains(ship))
+                .findFirst().get();
+
+        // Newest, unused and fastest possible ships top the board
+        mockMvc.perform(post("/rest/ships/bulk?shipType=MILITARY&planet=Jupiter")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"prodDate\":33103209600000,\"speed\":0.99,\"isUsed\":false}"))
+                .andExpect(status().isOk());
+        for (ShipInfoTest ship : changed) {
+            assertTrue("Обновленный корабль не поднялся в рейтинге.", rank(ship.id).get("rank").asInt() <= changed.size());
+        }
+
+        mockMvc.perform(delete("/rest/ships/bulk?shipType=MILITARY&planet=Jupiter"))
+                .andExpect(status().isOk());
+        for (ShipInfoTest ship : changed) {
+            mockMvc.perform(get("/rest/ships/" + ship.id + "/rank"))
+                    .andExpect(status().isNotFound());
+        }
+        assertEquals("Удаленные корабли остались в рейтинге.", 40 - changed.size(), rank(other.id).get("total").asInt());
+    }
+
+    private JsonNode rank(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id + "/rank"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private String count(String query) throws Exception {
+        return mockMvc.perform(get("/rest/ships/count?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
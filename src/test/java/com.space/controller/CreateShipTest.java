@@ -1,5 +1,6 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.ShipInfoTest;
 import com.space.controller.utils.TestsHelper;
@@ -9,7 +10,10 @@ import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
 import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -131,4 +135,47 @@ public class CreateShipTest extends AbstractTest {
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
         assertEquals("Возвращается не правильный результат при запросе создания корабля с параметром isUsed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test10
+    @Test
+    public void createShipBatchTest() throws Exception {
+        ResultActions resultActions = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.IS_USED_TRUE_JSON + "," + TestsHelper.IS_USED_FALSE_JSON + "]"))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+        assertEquals("Возвращается не правильный результат при пакетном создании кораблей.", expected, actual.get(0));
+
+        expected.id = 42L;
+        expected.isUsed = false;
+        expected.rating = 12.8;
+        assertEquals("Возвращается не правильный результат при пакетном создании кораблей.", expected, actual.get(1));
+        assertEquals("Созданные корабли не учитываются в количестве.", "42", count());
+    }
+
+    //test11
+    @Test
+    public void createShipBatchWithInvalidShipTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.EMPTY_NAME_JSON + "]"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+        assertEquals("Пакет с некорректным кораблем частично сохранен.", "40", count());
+    }
+
+    private String count() throws Exception {
+        return mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExplainTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void explainReturnsStagesWithRowCounts() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships?explain=true&shipType=MILITARY&minSpeed=0.5&order=RATING")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode stages = mapper.readTree(result.getResponse().getContentAsString()).get("stages");
+        assertTrue("План запроса не содержит стадий.", stages.size() > 0);
+
+        long filtered = testsHelper.getShipInfosByMinSpeed(0.5,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                        testsHelper.getAllShips())).size();
+        assertEquals("Последняя стадия фильтрации возвращает не правильное количество кораблей.",
+                filtered, stages.get(stages.size() - 2).get("rows").asLong());
+        assertEquals("Стадия сортировки возвращает не правильное количество кораблей.",
+                Math.min(filtered, 3), stages.get(stages.size() - 1).get("rows").asLong());
+    }
+}
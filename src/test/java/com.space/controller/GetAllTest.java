@@ -10,6 +10,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
@@ -217,4 +219,194 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами after, before, minCrewSize и maxCrewSize.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test11
+    @Test
+    public void getAllWithOrderRatingPageNumberSortsBeforePaging() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships?order=RATING&pageNumber=2&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(2, 5,
+                testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                        testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами order, pageNumber и pageSize.", expected, actual);
+    }
+
+    //test12
+    @Test
+    public void getAllWithNegativePageNumberReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/ships?pageNumber=-1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test13
+    @Test
+    public void getAllWithCursorWalksWholeFleetInOrder() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MvcResult result = mockMvc.perform(get("/rest/ships?order=SPEED&pageSize=7&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+            cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+        }
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED, testsHelper.getAllShips());
+        assertEquals("Возвращается не правильный результат при обходе GET /rest/ships с параметром cursor.", expected, actual);
+    }
+
+    //test14
+    @Test
+    public void getAllWithCursorOfOtherOrderReturnsBadRequest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships?order=RATING&pageSize=2&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/ships?order=SPEED&pageSize=2&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test15
+    @Test
+    public void getAllWithFiltersLongNameAndPlanetParts() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships?name=er&planet=atur&pageSize=10")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 10,
+                testsHelper.getShipInfosByName("er",
+                        testsHelper.getShipInfosByPlanet("atur",
+                                testsHelper.getAllShips())));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами name и planet.", expected, actual);
+
+        resultActions = mockMvc.perform(get("/rest/ships?name=Exc&pageSize=10")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(), typeReference);
+        expected = testsHelper.getShipInfosByPage(0, 10,
+                testsHelper.getShipInfosByName("Exc", testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметром name.", expected, actual);
+    }
+
+    //test16
+    @Test
+    public void getAllWithOrderRatingDescendingPage() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships?order=RATING&direction=DESC&pageNumber=1&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(),
+                typeReference);
+        List<ShipInfoTest> ascending = testsHelper.getShipInfosByOrder(ShipOrder.RATING, testsHelper.getAllShips());
+        Collections.reverse(ascending);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 5, ascending);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами order и direction.", expected, actual);
+
+        mockMvc.perform(get("/rest/ships?order=RATING&direction=DESC&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test17
+    @Test
+    public void getAllWithMultiKeySort() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships?sort=RATING:DESC,DATE:ASC&pageNumber=1&pageSize=8")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(),
+                typeReference);
+        List<ShipInfoTest> ships = testsHelper.getAllShips();
+        ships.sort((o1, o2) -> {
+            int compared = Double.compare(o2.rating, o1.rating);
+            if (compared == 0) compared = Long.compare(o1.prodDate, o2.prodDate);
+            return compared != 0 ? compared : Long.compare(o1.id, o2.id);
+        });
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 8, ships);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметром sort.", expected, actual);
+
+        mockMvc.perform(get("/rest/ships?sort=RATING:DOWN")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test18
+    @Test
+    public void getAllWithOverflowingPageReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/ships?pageNumber=1000000&pageSize=5000")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships?order=RATING&pageNumber=1000000&pageSize=5000")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships?explain=true&pageNumber=500000&pageSize=5000")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test19
+    @Test
+    public void getAllWithOrderAndSortSpellingsReturnsSamePage() throws Exception {
+        for (String order : new String[]{"RATING", "SPEED", "DATE"}) {
+            for (String direction : new String[]{"ASC", "DESC"}) {
+                String byOrder = mockMvc.perform(get("/rest/ships?order=" + order + "&direction=" + direction
+                        + "&pageNumber=1&pageSize=7")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                String bySort = mockMvc.perform(get("/rest/ships?sort=" + order + ":" + direction
+                        + "&pageNumber=1&pageSize=7")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+
+                assertEquals("Параметры order и sort вернули разные страницы для " + order + ":" + direction + ".",
+                        mapper.readValue(byOrder, typeReference), mapper.readValue(bySort, typeReference));
+            }
+        }
+    }
+
+    //test20
+    @Test
+    public void getAllWithNameAndPlanetFiltersIsCaseSensitive() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships?name=ORION&pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Фильтр по названию не должен игнорировать регистр.",
+                testsHelper.getShipInfosByName("ORION", testsHelper.getAllShips()),
+                mapper.readValue(content, typeReference));
+
+        content = mockMvc.perform(get("/rest/ships?planet=mars&pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Фильтр по планете не должен игнорировать регистр.",
+                testsHelper.getShipInfosByPlanet("mars", testsHelper.getAllShips()),
+                mapper.readValue(content, typeReference));
+    }
+}
@@ -1,5 +1,7 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
 import org.junit.Test;
@@ -7,8 +9,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetCountTest extends AbstractTest {
@@ -152,4 +157,67 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getCountWithSingleRangeFilter() throws Exception {
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметрами minSpeed и maxSpeed.",
+                testsHelper.getShipInfosByMinSpeed(0.355, testsHelper.getShipInfosByMaxSpeed(0.764,
+                        testsHelper.getAllShips())).size(), count("minSpeed=0.355&maxSpeed=0.764"));
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметром minRating.",
+                testsHelper.getShipInfosByMinRating(1.1, testsHelper.getAllShips()).size(), count("minRating=1.1"));
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметром maxCrewSize.",
+                testsHelper.getShipInfosByMaxCrewSize(500, testsHelper.getAllShips()).size(), count("maxCrewSize=500"));
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметрами after и before.",
+                testsHelper.getShipInfosByAfter(32188140000000L, testsHelper.getShipInfosByBefore(32976972000000L,
+                        testsHelper.getAllShips())).size(), count("after=32188140000000&before=32976972000000"));
+    }
+
+    //test10
+    @Test
+    public void getApproximateCountContainsExactCount() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/count?approximate=true&shipType=MILITARY")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode estimate = new ObjectMapper().readTree(content);
+
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).size();
+        assertTrue("Точное значение вне доверительного интервала.",
+                estimate.get("lower").asLong() <= expected && expected <= estimate.get("upper").asLong());
+        // A fleet smaller than the sample is sampled completely, so the estimate is exact
+        assertEquals("Неверная оценка количества кораблей.", expected, estimate.get("estimate").asLong());
+    }
+
+    //test11
+    @Test
+    public void getCountAfterCreatedShipProductionTime() throws Exception {
+        // The new ship is produced in the middle of the day, but only the day is stored
+        long prodDate = 32998274577071L;
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        int expected = testsHelper.getShipInfosByAfter(prodDate, testsHelper.getAllShips()).size();
+        assertSame("Созданный корабль учитывается с неверной датой производства.",
+                expected, count("after=" + prodDate));
+
+        String content = mockMvc.perform(get("/rest/ships/count?approximate=true&after=" + prodDate)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode estimate = new ObjectMapper().readTree(content);
+        assertEquals("Приблизительное количество учитывает неверную дату производства.",
+                expected, estimate.get("estimate").asLong());
+        assertTrue("Точное значение вне доверительного интервала.",
+                estimate.get("lower").asLong() <= expected && expected <= estimate.get("upper").asLong());
+    }
+
+    private int count(String query) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
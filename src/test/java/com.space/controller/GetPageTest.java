@@ -0,0 +1,66 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPageReturnsShipsAndCount() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/page?planet=ur&pageNumber=1&pageSize=4")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByPlanet("ur", testsHelper.getAllShips());
+
+        List<ShipInfoTest> actual = Arrays.asList(mapper.treeToValue(page.get("ships"), ShipInfoTest[].class));
+        assertEquals("Возвращается не правильный список при запросе GET /rest/ships/page.",
+                testsHelper.getShipInfosByPage(1, 4, filtered), actual);
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/ships/page.",
+                (long) filtered.size(), page.get("count").asLong());
+    }
+
+    //test2
+    @Test
+    public void getPageWithFacetsReturnsCountsPerShipTypeAndIsUsed() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/page?minSpeed=0.5&facets=true")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+        JsonNode facets = page.get("facets");
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByMinSpeed(0.5, testsHelper.getAllShips());
+
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/ships/page с фасетами.",
+                (long) filtered.size(), page.get("count").asLong());
+
+        for (ShipType type : ShipType.values()) {
+            assertEquals("Возвращается не правильный фасет shipType при запросе GET /rest/ships/page.",
+                    (long) testsHelper.getShipInfosByShipType(type, filtered).size(),
+                    facets.get("shipType").path(type.name()).asLong());
+        }
+        assertEquals("Возвращается не правильный фасет isUsed при запросе GET /rest/ships/page.",
+                (long) testsHelper.getShipInfosByIsUsed(true, filtered).size(),
+                facets.get("isUsed").path("true").asLong());
+    }
+}
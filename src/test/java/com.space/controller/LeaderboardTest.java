@@ -0,0 +1,92 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LeaderboardTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getLeaderboardPage() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/leaderboard?pageNumber=2&pageSize=6")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(content, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(2, 6, leaderboard());
+
+        assertEquals("Неверная страница рейтинга кораблей.", expected, actual);
+
+        mockMvc.perform(get("/rest/ships/leaderboard?pageNumber=-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void getRankOfEveryShip() throws Exception {
+        List<ShipInfoTest> ships = leaderboard();
+        for (int i = 0; i < ships.size(); i++) {
+            JsonNode rank = rank(ships.get(i).id);
+            assertEquals("Неверное место корабля с id " + ships.get(i).id + ".", i + 1, rank.get("rank").asInt());
+            assertEquals("Неверное количество кораблей в рейтинге.", ships.size(), rank.get("total").asInt());
+        }
+
+        mockMvc.perform(get("/rest/ships/0/rank"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/100/rank"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void getRankFollowsCreateAndUpdate() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        JsonNode created = rank(41);
+        assertEquals("Созданный корабль не попал в рейтинг.", 41, created.get("total").asInt());
+
+        // Newest, unused and fastest possible ship tops the board
+        mockMvc.perform(post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"prodDate\":33103209600000,\"speed\":0.99}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновленный корабль не поднялся в рейтинге.", 1, rank(41).get("rank").asInt());
+    }
+
+    private List<ShipInfoTest> leaderboard() {
+        List<ShipInfoTest> ships = testsHelper.getAllShips();
+        ships.sort((o1, o2) -> {
+            int compared = Double.compare(o2.rating, o1.rating);
+            return compared != 0 ? compared : Long.compare(o2.id, o1.id);
+        });
+        return ships;
+    }
+
+    private JsonNode rank(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id + "/rank")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
@@ -0,0 +1,44 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("memory")
+public class MemoryGetCountTest extends GetCountTest {
+
+    @Test
+    public void getCountFollowsCreateUpdateAndDelete() throws Exception {
+        int before = count("planet=Earth");
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Созданный корабль не учитывается в GET /rest/ships/count.", before + 1, count("planet=Earth"));
+
+        mockMvc.perform(post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Mars\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновленный корабль не учитывается в GET /rest/ships/count.", before, count("planet=Earth"));
+
+        mockMvc.perform(delete("/rest/ships/41"))
+                .andExpect(status().isOk());
+        assertEquals("Удаленный корабль учитывается в GET /rest/ships/count.", 40, count(""));
+    }
+
+    private int count(String query) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,31 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("memory")
+public class MemoryStatsTest extends StatsTest {
+
+    @Test
+    public void smallFleetIsFilteredSequentially() throws Exception {
+        // Two sort keys rule out walking an index, so the matches go through a sort pass
+        mockMvc.perform(get("/rest/ships?minSpeed=0.5&sort=RATING:DESC,SPEED:ASC")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode statistics = engineStatistics();
+        assertEquals("Неверный тип движка.", "memory", statistics.get("engine").asText());
+        assertEquals("Неверное количество кораблей в индексе.", 40, statistics.get("ships").asInt());
+
+        JsonNode parallel = statistics.get("parallel");
+        assertTrue("Не учтены последовательные проходы.", parallel.get("sequentialPasses").asLong() > 0);
+        assertEquals("Маленький флот обработан параллельно.", 1, parallel.get("lastParallelism").asInt());
+    }
+}
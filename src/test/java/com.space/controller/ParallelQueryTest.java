@@ -0,0 +1,100 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The memory engine with a threshold of one row per thread, so that filtering and sorting always split the fleet
+// into chunks and merge them back; the results must be the ones a single pass over the rows gives
+@ActiveProfiles("memory")
+@TestPropertySource(properties = {"cosmoport.parallel.threads=4", "cosmoport.parallel.workPerThread=1"})
+public class ParallelQueryTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void parallelQueriesMatchSequentialResults() throws Exception {
+        List<ShipInfoTest> ships = testsHelper.getAllShips();
+        ships.addAll(createShips(400));
+
+        assertEquals("Неверная страница при параллельной сортировке по скорости.",
+                testsHelper.getShipInfosByPage(3, 20, testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                        new ArrayList<>(ships))),
+                ships("order=SPEED&pageNumber=3&pageSize=20"));
+
+        // offset + limit is far more than any chunk holds
+        assertEquals("Неверная глубокая страница при параллельной сортировке по скорости.",
+                testsHelper.getShipInfosByPage(19, 20, testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                        new ArrayList<>(ships))),
+                ships("order=SPEED&pageNumber=19&pageSize=20"));
+
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByIsUsed(false,
+                testsHelper.getShipInfosByMaxSpeed(0.7, testsHelper.getShipInfosByMinSpeed(0.3, ships)));
+        assertEquals("Неверная страница при параллельной фильтрации и сортировке по рейтингу.",
+                testsHelper.getShipInfosByPage(1, 25, testsHelper.getShipInfosByOrder(ShipOrder.RATING, filtered)),
+                ships("minSpeed=0.3&maxSpeed=0.7&isUsed=false&order=RATING&pageNumber=1&pageSize=25"));
+
+        assertEquals("Неверный результат при параллельной фильтрации по названию и экипажу.",
+                testsHelper.getShipInfosByMinCrewSize(100, testsHelper.getShipInfosByName("allel1", ships)),
+                ships("name=allel1&minCrewSize=100&pageSize=500"));
+
+        String statistics = mockMvc.perform(get("/rest/stats/engine"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Запросы не выполнялись параллельно.",
+                mapper.readTree(statistics).get("parallel").get("maxParallelism").asInt() > 1);
+    }
+
+    private List<ShipInfoTest> createShips(int count) throws Exception {
+        ShipType[] types = ShipType.values();
+        StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(2801 + i % 218, Calendar.JUNE, 1);
+
+            if (i > 0) content.append(',');
+            content.append(String.format(Locale.ROOT, "{\"name\":\"Parallel%d\",\"planet\":\"Planet%d\","
+                            + "\"shipType\":\"%s\",\"prodDate\":%d,\"isUsed\":%b,\"speed\":%.2f,\"crewSize\":%d}",
+                    i, i % 7, types[i % types.length], calendar.getTimeInMillis(), i % 3 == 0,
+                    0.01 + i * 37 % 99 / 100.0, 1 + i * 53 % 9999));
+        }
+        content.append(']');
+
+        String created = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(content.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(created, typeReference);
+    }
+
+    private List<ShipInfoTest> ships(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
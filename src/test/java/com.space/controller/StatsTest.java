@@ -0,0 +1,223 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.ShipServiceReset;
+import com.space.service.SingleFlight;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StatsTest extends AbstractTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getEngineStatisticsTest() throws Exception {
+        JsonNode statistics = engineStatistics();
+        assertTrue("Статистика не содержит тип движка.", statistics.has("engine"));
+    }
+
+    //test2
+    @Test
+    public void repeatedCountHitsCacheUntilShipIsCreated() throws Exception {
+        int first = count();
+        long hits = statistics("cache").get("hits").asLong();
+
+        assertEquals("Повторный запрос вернул другой результат.", first, count());
+        assertEquals("Повторный запрос не попал в кэш.", hits + 1, statistics("cache").get("hits").asLong());
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Кэш не сброшен после создания корабля.", first + 1, count());
+    }
+
+    //test3
+    @Test
+    public void concurrentIdenticalCountsShareResult() throws Exception {
+        int expected = count();
+        ShipServiceReset.refresh(shipService);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                counts.add(executor.submit(this::count));
+            }
+            for (Future<Integer> count : counts) {
+                assertEquals("Параллельные одинаковые запросы вернули разные результаты.", expected, (int) count.get());
+            }
+
+            // A computation held open makes every later caller with the same key wait for it instead of computing
+            SingleFlight singleFlight = context.getBean(SingleFlight.class);
+            long coalesced = singleFlightStatistic("coalesced");
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Integer> first = executor.submit(() -> singleFlight.execute("test3", () -> {
+                awaitUninterruptibly(release);
+                return 42;
+            }));
+            awaitSingleFlightStatistic("inFlight", 1);
+
+            List<Future<Integer>> waiters = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiters.add(executor.submit(() -> singleFlight.execute("test3", () -> -1)));
+            }
+            awaitSingleFlightStatistic("coalesced", coalesced + 3);
+            release.countDown();
+
+            assertEquals("Первый запрос вернул неверный результат.", 42, (int) first.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> waiter : waiters) {
+                assertEquals("Ожидающий запрос не получил общий результат.", 42, (int) waiter.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("Остались незавершенные вычисления.", 0, singleFlightStatistic("inFlight"));
+    }
+
+    //test4
+    @Test
+    public void getPoolStatisticsTest() throws Exception {
+        long acquisitions = statistics("pool").get("acquisitions").asLong();
+        mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk());
+
+        JsonNode statistics = statistics("pool");
+        assertTrue("Запрос не взял соединение из пула.", statistics.get("acquisitions").asLong() > acquisitions);
+        assertTrue("Пул не прогрет.", statistics.get("total").asInt() >= statistics.get("minIdle").asInt());
+        assertEquals("Неверный размер пула.", 16, statistics.get("maxSize").asInt());
+        assertEquals("Есть таймауты получения соединения.", 0, statistics.get("timeouts").asLong());
+    }
+
+    //test5
+    @Test
+    public void repeatedGetByIdHitsEntityCache() throws Exception {
+        mockMvc.perform(get("/rest/ships/5"))
+                .andExpect(status().isOk());
+        long hits = statistics("entity-cache").get("hits").asLong();
+
+        mockMvc.perform(get("/rest/ships/5"))
+                .andExpect(status().isOk());
+        JsonNode statistics = statistics("entity-cache");
+        assertEquals("Повторное чтение корабля не попало в кэш второго уровня.", hits + 1, statistics.get("hits").asLong());
+
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Pluto\"}"))
+                .andExpect(status().isOk());
+        String ship = mockMvc.perform(get("/rest/ships/5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Кэш второго уровня вернул устаревший корабль.", "Pluto", mapper.readTree(ship).get("planet").asText());
+    }
+
+    //test6
+    @Test
+    public void deletingShipKeepsOtherShipsInEntityCache() throws Exception {
+        mockMvc.perform(get("/rest/ships/6"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/7"))
+                .andExpect(status().isOk());
+        long hits = statistics("entity-cache").get("hits").asLong();
+
+        mockMvc.perform(get("/rest/ships/6"))
+                .andExpect(status().isOk());
+        assertEquals("Удаление корабля вытеснило из кэша другие корабли.", hits + 1, statistics("entity-cache").get("hits").asLong());
+
+        mockMvc.perform(get("/rest/ships/7"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test7
+    @Test
+    public void waitersSeeErrorOfSharedComputation() throws Exception {
+        SingleFlight singleFlight = context.getBean(SingleFlight.class);
+        long coalesced = singleFlightStatistic("coalesced");
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> singleFlight.execute("test7", () -> {
+                awaitUninterruptibly(release);
+                throw new Error("test7");
+            }));
+            awaitSingleFlightStatistic("inFlight", 1);
+            Future<Integer> waiter = executor.submit(() -> singleFlight.execute("test7", () -> -1));
+            awaitSingleFlightStatistic("coalesced", coalesced + 1);
+            release.countDown();
+
+            for (Future<Integer> result : Arrays.asList(first, waiter)) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("Ошибка вычисления не передана вызывающему.");
+                } catch (ExecutionException e) {
+                    assertEquals("Передана не та ошибка.", "test7", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("Остались незавершенные вычисления.", 0, singleFlightStatistic("inFlight"));
+    }
+
+    private long singleFlightStatistic(String name) throws Exception {
+        return statistics("cache").get("singleFlight").get(name).asLong();
+    }
+
+    private void awaitSingleFlightStatistic(String name, long value) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlightStatistic(name) != value) {
+            if (System.currentTimeMillis() > deadline) fail("Не дождались " + name + " = " + value + ".");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    JsonNode engineStatistics() throws Exception {
+        return statistics("engine");
+    }
+
+    private JsonNode statistics(String name) throws Exception {
+        String content = mockMvc.perform(get("/rest/stats/" + name)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private int count() throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count?planet=Earth")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SuggestTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void suggestPlanetsByPrefix() throws Exception {
+        Map<String, Integer> expected = new TreeMap<>();
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            if (ship.planet.toLowerCase().startsWith("m")) expected.merge(ship.planet, 1, Integer::sum);
+        }
+
+        JsonNode actual = suggest("field=planet&prefix=M");
+        assertEquals("Неверное количество подсказок.", expected.size(), actual.size());
+
+        int previous = Integer.MAX_VALUE;
+        for (JsonNode suggestion : actual) {
+            String value = suggestion.get("value").asText();
+            int count = suggestion.get("count").asInt();
+            assertEquals("Неверная частота планеты " + value + ".", (int) expected.get(value), count);
+            assertEquals("Подсказки не отсортированы по частоте.", true, count <= previous);
+            previous = count;
+        }
+    }
+
+    //test2
+    @Test
+    public void suggestNamesAndPlanetsWithLimit() throws Exception {
+        JsonNode actual = suggest("prefix=e&limit=3");
+        assertEquals("Не соблюдается ограничение количества подсказок.", 3, actual.size());
+
+        List<String> names = new ArrayList<>();
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            if (ship.name.toLowerCase().startsWith("e")) names.add(ship.name);
+        }
+        assertEquals("Неверное количество подсказок по названию.", names.size(),
+                suggest("field=name&prefix=E&limit=100").size());
+
+        mockMvc.perform(get("/rest/ships/suggest?field=type&prefix=a"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/suggest?prefix=a&limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void suggestFollowsCreateAndDelete() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        JsonNode created = suggest("field=name&prefix=1234");
+        assertEquals("Созданный корабль не попал в подсказки.", "123456789", created.get(0).get("value").asText());
+
+        mockMvc.perform(delete("/rest/ships/41"))
+                .andExpect(status().isOk());
+        assertEquals("Удаленный корабль остался в подсказках.", 0, suggest("field=name&prefix=1234").size());
+    }
+
+    //test4
+    @Test
+    public void suggestShowsMostCommonCasing() throws Exception {
+        createShip("NEBULA");
+        createShip("Nebula");
+        createShip("Nebula");
+        JsonNode suggestions = suggest("field=name&prefix=neb");
+        assertEquals("Варианты написания не объединены в одну подсказку.", 1, suggestions.size());
+        assertEquals("Подсказка показывает не самое частое написание.", "Nebula", suggestions.get(0).get("value").asText());
+        assertEquals("Неверная частота подсказки.", 3, suggestions.get(0).get("count").asInt());
+
+        mockMvc.perform(delete("/rest/ships/42"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/43"))
+                .andExpect(status().isOk());
+        suggestions = suggest("field=name&prefix=neb");
+        assertEquals("Подсказка показывает написание удаленного корабля.", "NEBULA", suggestions.get(0).get("value").asText());
+        assertEquals("Неверная частота подсказки.", 1, suggestions.get(0).get("count").asInt());
+    }
+
+    private void createShip(String name) throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON.replace("123456789", name)))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode suggest(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/suggest?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
@@ -1,15 +1,36 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.ShipInfoTest;
 import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
 import com.space.model.ShipType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -188,4 +209,177 @@ public class UpdateShipTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/ships/{id} корабль должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void concurrentUpdatesOfDifferentFieldsAreNotLostTest() throws Exception {
+        String[] patches = {"{\"name\":\"Concurrent\"}", "{\"planet\":\"Pluto\"}", "{\"crewSize\":9999}",
+                "{\"speed\":0.99}", "{\"shipType\":\"TRANSPORT\"}", "{\"isUsed\":false}"};
+
+        ExecutorService executor = Executors.newFixedThreadPool(patches.length);
+        List<Integer> statuses = new ArrayList<>();
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (String patch : patches) {
+                results.add(executor.submit(() -> mockMvc.perform(post("/rest/ships/1")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(patch))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> result : results) {
+                statuses.add(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+
+        // An update either lands or is rejected with 409, it is never silently overwritten
+        Object[] values = {"Concurrent", "Pluto", 9999, 0.99, ShipType.TRANSPORT, false};
+        Object[] fields = {actual.name, actual.planet, actual.crewSize, actual.speed, actual.shipType, actual.isUsed};
+        for (int i = 0; i < patches.length; i++) {
+            int status = statuses.get(i);
+            assertEquals("Неожиданный ответ на параллельное обновление.", true, status == 200 || status == 409);
+            if (status == 200) assertEquals("Параллельное обновление потеряно: " + patches[i], values[i], fields[i]);
+        }
+    }
+
+    //test13
+    @Test
+    public void concurrentUpdatesReachSuggestionsInOrderTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String patch = "{\"name\":\"Parallel" + i + "\"}";
+                results.add(executor.submit(() -> mockMvc.perform(post("/rest/ships/1")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(patch))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals("Неожиданный ответ на параллельное обновление.", 200, (int) result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+
+        String suggestions = mockMvc.perform(get("/rest/ships/suggest?field=name&prefix=Parallel"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode names = mapper.readTree(suggestions);
+        assertEquals("Подсказки содержат устаревшие названия.", 1, names.size());
+        assertEquals("Подсказка не совпадает с последним названием.", actual.name, names.get(0).get("value").asText());
+    }
+
+    //test14
+    @Test
+    public void updateRetriedAfterStaleVersionTest() throws Exception {
+        StaleVersions staleVersions = staleVersions(1, 1);
+        try {
+            mockMvc.perform(post("/rest/ships/1")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"name\":\"Retried\"}"))
+                    .andExpect(status().isOk());
+        } finally {
+            staleVersions.stop();
+        }
+        assertEquals("Обновление со старой версией не было повторено.", 2, staleVersions.attempts.get());
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Повторное обновление не сохранилось.", "Retried",
+                mapper.readValue(contentAsString, ShipInfoTest.class).name);
+    }
+
+    //test15
+    @Test
+    public void updateWithAlwaysStaleVersionReturnsConflictTest() throws Exception {
+        ShipInfoTest expected = testsHelper.getShipInfosById(1);
+
+        StaleVersions staleVersions = staleVersions(1, Integer.MAX_VALUE);
+        try {
+            mockMvc.perform(post("/rest/ships/1")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"name\":\"Conflicting\"}"))
+                    .andExpect(status().isConflict());
+        } finally {
+            staleVersions.stop();
+        }
+        assertEquals("Неверное число попыток обновления.", 3, staleVersions.attempts.get());
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Отклоненное обновление изменило корабль.", expected,
+                mapper.readValue(contentAsString, ShipInfoTest.class));
+    }
+
+    // Bumps the row's version behind Hibernate's back right before the next times updates of the ship are flushed,
+    // so that each of them is issued with a version that is already stale
+    private StaleVersions staleVersions(long id, int times) {
+        SessionFactoryImplementor sessionFactory = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactoryImplementor.class);
+        EventListenerGroup<PreUpdateEventListener> listeners = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class).getEventListenerGroup(EventType.PRE_UPDATE);
+        for (PreUpdateEventListener listener : listeners.listeners()) {
+            if (listener == STALE_VERSIONS) return STALE_VERSIONS.start(context.getBean("dataSource", DataSource.class), id, times);
+        }
+        listeners.appendListener(STALE_VERSIONS);
+        return STALE_VERSIONS.start(context.getBean("dataSource", DataSource.class), id, times);
+    }
+
+    private static final StaleVersions STALE_VERSIONS = new StaleVersions();
+
+    private static class StaleVersions implements PreUpdateEventListener {
+
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile DataSource dataSource;
+        private volatile long id;
+        private volatile boolean active;
+
+        StaleVersions start(DataSource dataSource, long id, int times) {
+            this.dataSource = dataSource;
+            this.id = id;
+            attempts.set(0);
+            remaining.set(times);
+            active = true;
+            return this;
+        }
+
+        void stop() {
+            active = false;
+        }
+
+        @Override
+        public boolean onPreUpdate(PreUpdateEvent event) {
+            if (!active || !(event.getEntity() instanceof Ship) || !Long.valueOf(id).equals(event.getId())) {
+                return false;
+            }
+
+            attempts.incrementAndGet();
+            if (remaining.getAndDecrement() <= 0) return false;
+
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "update ship set version = version + 1 where id = ?")) {
+                statement.setLong(1, id);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return false;
+        }
+    }
+}
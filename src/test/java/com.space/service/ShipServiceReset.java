@@ -0,0 +1,12 @@
+package com.space.service;
+
+// Lets tests in other packages rebuild the service's derived state after rewriting the table directly
+public final class ShipServiceReset {
+
+    private ShipServiceReset() {
+    }
+
+    public static void refresh(ShipServiceImpl shipService) {
+        shipService.refresh();
+    }
+}